@@ -0,0 +1,38 @@
+package com.example.liongardmock;
+
+import java.time.Duration;
+
+public record AdmissionConfig(
+        int maxConcurrency,
+        int routeConcurrency,
+        int maxQueue,
+        Duration queueTimeout,
+        boolean adaptive,
+        int retryAfterSeconds
+) {
+    public static final Duration DEFAULT_QUEUE_TIMEOUT = Duration.ofSeconds(1);
+
+    public AdmissionConfig {
+        if (maxConcurrency < 0 || routeConcurrency < 0 || maxQueue < 0) {
+            throw new IllegalArgumentException("Concurrency limits and queue size must not be negative.");
+        }
+        if (retryAfterSeconds < 0) {
+            throw new IllegalArgumentException("Retry-After must not be negative: " + retryAfterSeconds);
+        }
+        queueTimeout = queueTimeout == null ? Duration.ZERO : queueTimeout;
+        if (queueTimeout.isNegative()) {
+            throw new IllegalArgumentException("Queue timeout must not be negative: " + queueTimeout);
+        }
+        if (maxQueue > 0 && queueTimeout.isZero()) {
+            queueTimeout = DEFAULT_QUEUE_TIMEOUT;
+        }
+    }
+
+    public static AdmissionConfig unlimited() {
+        return new AdmissionConfig(0, 0, 0, Duration.ZERO, false, 1);
+    }
+
+    public boolean enabled() {
+        return maxConcurrency > 0 || routeConcurrency > 0;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.liongardmock;
+
+final class AdmissionController {
+    private final AdmissionConfig config;
+    private final ConcurrencyLimiter globalLimiter;
+    private final long queueTimeoutNanos;
+
+    AdmissionController(AdmissionConfig config) {
+        this.config = config;
+        this.globalLimiter = config.maxConcurrency() > 0
+                ? new ConcurrencyLimiter(config.maxConcurrency(), config.maxQueue(), config.adaptive())
+                : null;
+        this.queueTimeoutNanos = config.queueTimeout().toNanos();
+    }
+
+    ConcurrencyLimiter newRouteLimiter() {
+        if (config.routeConcurrency() <= 0) {
+            return null;
+        }
+        return new ConcurrencyLimiter(config.routeConcurrency(), config.maxQueue(), config.adaptive());
+    }
+
+    int retryAfterSeconds() {
+        return config.retryAfterSeconds();
+    }
+
+    Permit tryAdmit(ConcurrencyLimiter routeLimiter) throws InterruptedException {
+        // Both limits share one deadline so a request never queues longer than the configured timeout in total.
+        long deadline = System.nanoTime() + queueTimeoutNanos;
+        if (routeLimiter != null && !routeLimiter.tryAcquire(queueTimeoutNanos)) {
+            return null;
+        }
+        boolean admitted = false;
+        try {
+            admitted = globalLimiter == null || globalLimiter.tryAcquire(deadline - System.nanoTime());
+        } finally {
+            if (!admitted && routeLimiter != null) {
+                routeLimiter.releaseWithoutSample();
+            }
+        }
+        return admitted ? new Permit(globalLimiter, routeLimiter, System.nanoTime()) : null;
+    }
+
+    record Permit(ConcurrencyLimiter globalLimiter, ConcurrencyLimiter routeLimiter, long admittedAt)
+            implements AutoCloseable {
+        @Override
+        public void close() {
+            long rttNanos = System.nanoTime() - admittedAt;
+            if (routeLimiter != null) {
+                routeLimiter.release(rttNanos);
+            }
+            if (globalLimiter != null) {
+                globalLimiter.release(rttNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.liongardmock;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class CompiledSpec {
+    private final List<RouteConfig> routes;
+    private final List<RoutePattern> patterns;
+    private final Map<Path, byte[]> responseBodies;
+    private final int newlyCreatedFileCount;
+
+    private CompiledSpec(List<RouteConfig> routes, Map<Path, byte[]> responseBodies, int newlyCreatedFileCount) {
+        this.routes = List.copyOf(routes);
+        this.patterns = this.routes.stream().map(RoutePattern::compile).toList();
+        this.responseBodies = Map.copyOf(responseBodies);
+        this.newlyCreatedFileCount = newlyCreatedFileCount;
+    }
+
+    public static CompiledSpec load(Path specPath, Path mockDir) throws IOException {
+        JsonNode spec = new OpenApiSpecLoader().load(specPath);
+        MockDataGenerator generator = new MockDataGenerator(spec);
+        List<RouteConfig> routes = generator.prepareMocks(mockDir);
+        Map<Path, byte[]> responseBodies = new HashMap<>();
+        for (RouteConfig route : routes) {
+            Path bodyFile = route.responseConfig().bodyFile();
+            if (bodyFile != null && !responseBodies.containsKey(bodyFile)) {
+                responseBodies.put(bodyFile, Files.readAllBytes(bodyFile));
+            }
+        }
+        return new CompiledSpec(routes, responseBodies, generator.newlyCreatedFileCount());
+    }
+
+    public static CompiledSpec of(List<RouteConfig> routes) {
+        return new CompiledSpec(routes, Map.of(), 0);
+    }
+
+    public List<RouteConfig> routes() {
+        return routes;
+    }
+
+    public int newlyCreatedFileCount() {
+        return newlyCreatedFileCount;
+    }
+
+    List<RoutePattern> patterns() {
+        return patterns;
+    }
+
+    Map<Path, byte[]> responseBodies() {
+        return responseBodies;
+    }
+}
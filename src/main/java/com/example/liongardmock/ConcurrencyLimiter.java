@@ -0,0 +1,105 @@
+package com.example.liongardmock;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// In adaptive mode the limit follows the gradient of the best recent latency over the observed one:
+// it shrinks as requests slow down and probes upwards by about sqrt(limit) while latency stays flat.
+final class ConcurrencyLimiter {
+    private static final double SMOOTHING = 0.2;
+    private static final double RTT_TOLERANCE = 2.0;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final int MIN_RTT_WINDOW = 1000;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition permitAvailable = lock.newCondition();
+    private final int maxLimit;
+    private final int maxQueue;
+    private final boolean adaptive;
+
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private long minRttNanos = Long.MAX_VALUE;
+    private int samplesSinceMinRttReset;
+
+    ConcurrencyLimiter(int maxLimit, int maxQueue, boolean adaptive) {
+        if (maxLimit <= 0) {
+            throw new IllegalArgumentException("Concurrency limit must be positive: " + maxLimit);
+        }
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.adaptive = adaptive;
+        this.limit = maxLimit;
+    }
+
+    boolean tryAcquire(long timeoutNanos) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            if (inFlight < currentLimit()) {
+                inFlight++;
+                return true;
+            }
+            if (waiting >= maxQueue || timeoutNanos <= 0) {
+                return false;
+            }
+            waiting++;
+            try {
+                long remaining = timeoutNanos;
+                while (inFlight >= currentLimit()) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = permitAvailable.awaitNanos(remaining);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(long rttNanos) {
+        releasePermit(rttNanos, true);
+    }
+
+    void releaseWithoutSample() {
+        releasePermit(0, false);
+    }
+
+    private void releasePermit(long rttNanos, boolean sample) {
+        lock.lock();
+        try {
+            boolean saturated = inFlight >= currentLimit() / 2;
+            inFlight--;
+            if (adaptive && sample) {
+                updateLimit(Math.max(1, rttNanos), saturated);
+            }
+            permitAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int currentLimit() {
+        return (int) limit;
+    }
+
+    private void updateLimit(long rttNanos, boolean saturated) {
+        if (++samplesSinceMinRttReset >= MIN_RTT_WINDOW) {
+            minRttNanos = rttNanos;
+            samplesSinceMinRttReset = 0;
+        } else {
+            minRttNanos = Math.min(minRttNanos, rttNanos);
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, RTT_TOLERANCE * minRttNanos / rttNanos));
+        // Only probe upwards when the limit is actually being used; an idle server says nothing about capacity.
+        double headroom = gradient >= 1.0 && !saturated ? 0.0 : Math.sqrt(limit);
+        double target = limit * gradient + headroom;
+        double smoothed = limit * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(1.0, Math.min(maxLimit, smoothed));
+    }
+}
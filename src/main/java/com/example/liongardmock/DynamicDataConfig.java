@@ -0,0 +1,10 @@
+package com.example.liongardmock;
+
+public record DynamicDataConfig(
+        boolean enabled,
+        long seed
+) {
+    public static DynamicDataConfig disabled() {
+        return new DynamicDataConfig(false, 0L);
+    }
+}
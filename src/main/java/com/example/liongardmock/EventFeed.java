@@ -0,0 +1,291 @@
+package com.example.liongardmock;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+final class EventFeed {
+    private static final long FIRST_TIMELINE_ID = 1_000_000L;
+    private static final int LOG_LINES_PER_ENTRY = 4;
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 10_000;
+    private static final long PRODUCER_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final List<String> STATUSES = List.of("Completed", "Completed", "Completed", "Failed", "Running");
+    private static final List<String> LOG_CATEGORIES = List.of("Inspection", "Inspection", "Change Detections", "Dataprint");
+    private static final List<String> LOG_MESSAGES = List.of(
+            "Inspection scheduled",
+            "Inspection started on agent",
+            "Successfully ran change detection metric, no change was detected",
+            "Dataprint uploaded and processed");
+
+    enum Endpoint {
+        TIMELINE, TIMELINE_DETAIL, LOGS
+    }
+
+    private final EventFeedConfig config;
+    private final EventRing timeline;
+    private final EventRing logs;
+    private final JsonFactory jsonFactory;
+    private volatile Thread producer;
+
+    EventFeed(EventFeedConfig config) {
+        this.config = config;
+        this.timeline = new EventRing(config.capacity());
+        this.logs = new EventRing(config.capacity() * LOG_LINES_PER_ENTRY);
+        this.jsonFactory = new JsonFactory();
+    }
+
+    Endpoint endpointFor(RouteConfig route) {
+        if (!"GET".equals(route.httpMethod())) {
+            return null;
+        }
+        return switch (route.pathTemplate()) {
+            case "/timeline" -> Endpoint.TIMELINE;
+            case "/timeline/{TimelineID}/detail" -> Endpoint.TIMELINE_DETAIL;
+            case "/logs" -> Endpoint.LOGS;
+            default -> null;
+        };
+    }
+
+    void start() {
+        Thread thread = new Thread(this::produce, "event-feed-producer");
+        thread.setDaemon(true);
+        producer = thread;
+        thread.start();
+    }
+
+    void stop() {
+        Thread thread = producer;
+        producer = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    void respond(Endpoint endpoint, HttpExchange exchange, Map<String, String> pathParams) throws IOException {
+        Map<String, String> query;
+        try {
+            query = parseQuery(exchange.getRequestURI().getRawQuery());
+            validateParameters(endpoint, query, pathParams);
+        } catch (IllegalArgumentException ex) {
+            respondText(exchange, 400, ex.getMessage());
+            return;
+        }
+        switch (endpoint) {
+            case TIMELINE -> respondWithTimeline(exchange, query);
+            case TIMELINE_DETAIL -> respondWithTimelineDetail(exchange, pathParams.get("TimelineID"));
+            case LOGS -> respondWithLogs(exchange, query);
+        }
+    }
+
+    private void respondWithTimeline(HttpExchange exchange, Map<String, String> query) throws IOException {
+        int limit = parseLimit(query.get("limit"));
+        long from = query.containsKey("since")
+                ? parseNumber(query.get("since"), "since") - FIRST_TIMELINE_ID + 1
+                : timeline.head() - limit + 1;
+        try (JsonGenerator generator = startJsonArray(exchange)) {
+            char[] buffer = new char[TimestampFormat.MAX_LENGTH];
+            timeline.read(from, limit, (sequence, timestamp, payload) ->
+                    writeTimelineEntry(generator, buffer, sequence, timestamp, payload));
+            generator.writeEndArray();
+        }
+    }
+
+    private void respondWithTimelineDetail(HttpExchange exchange, String timelineId) throws IOException {
+        long sequence = parseNumber(timelineId, "TimelineID") - FIRST_TIMELINE_ID;
+        // Read before any headers are sent so an entry overwritten by the producer still gets a 404, not an empty 200.
+        long[] createdOn = {-1};
+        timeline.read(sequence, 1, (entrySequence, timestamp, payload) -> {
+            if (entrySequence == sequence) {
+                createdOn[0] = timestamp;
+            }
+        });
+        if (createdOn[0] < 0) {
+            respondText(exchange, 404, "Timeline entry " + timelineId + " is not in the simulated event feed");
+            return;
+        }
+        try (JsonGenerator generator = startJsonArray(exchange)) {
+            char[] buffer = new char[TimestampFormat.MAX_LENGTH];
+            generator.writeStartObject();
+            generator.writeNumberField("TimelineID", FIRST_TIMELINE_ID + sequence);
+            writeTimestampField(generator, buffer, "CreatedOn", createdOn[0]);
+            generator.writeObjectFieldStart("SystemDetailConfiguration");
+            generator.writeEndObject();
+            generator.writeBooleanField("Expired", false);
+            generator.writeEndObject();
+            generator.writeEndArray();
+        }
+    }
+
+    private void respondWithLogs(HttpExchange exchange, Map<String, String> query) throws IOException {
+        long from;
+        int limit;
+        long timelineSequence = -1;
+        if (query.containsKey("timeline")) {
+            timelineSequence = parseNumber(query.get("timeline"), "timeline") - FIRST_TIMELINE_ID;
+            from = timelineSequence * LOG_LINES_PER_ENTRY;
+            limit = LOG_LINES_PER_ENTRY;
+        } else {
+            limit = parseLimit(query.get("limit"));
+            from = query.containsKey("since")
+                    ? parseNumber(query.get("since"), "since") + 1
+                    : logs.head() - limit + 1;
+        }
+        boolean filterByTimeline = query.containsKey("timeline");
+        long requiredTimeline = timelineSequence;
+        try (JsonGenerator generator = startJsonArray(exchange)) {
+            char[] buffer = new char[TimestampFormat.MAX_LENGTH];
+            logs.read(Math.max(0, from), limit, (sequence, timestamp, payload) -> {
+                if (!filterByTimeline || payload >>> 8 == requiredTimeline) {
+                    writeLogLine(generator, buffer, sequence, timestamp, payload);
+                }
+            });
+            generator.writeEndArray();
+        }
+    }
+
+    private void produce() {
+        SplittableRandom random = new SplittableRandom();
+        long startedAt = System.nanoTime();
+        long produced = 0;
+        while (producer == Thread.currentThread() && !Thread.currentThread().isInterrupted()) {
+            long due = (long) ((System.nanoTime() - startedAt) / 1e9 * config.entriesPerSecond());
+            long backlog = Math.min(due - produced, config.capacity());
+            long now = System.currentTimeMillis();
+            for (long i = 0; i < backlog; i++) {
+                long sequence = timeline.append(now, random.nextLong());
+                for (int line = 0; line < LOG_LINES_PER_ENTRY; line++) {
+                    logs.append(now, sequence << 8 | line);
+                }
+            }
+            produced = due;
+            LockSupport.parkNanos(PRODUCER_TICK_NANOS);
+        }
+    }
+
+    private static void writeTimelineEntry(JsonGenerator generator,
+                                           char[] buffer,
+                                           long sequence,
+                                           long timestamp,
+                                           long attributes) throws IOException {
+        String status = STATUSES.get((int) Long.remainderUnsigned(attributes, STATUSES.size()));
+        generator.writeStartObject();
+        generator.writeNumberField("ID", FIRST_TIMELINE_ID + sequence);
+        writeReference(generator, "Environment", 1_000 + (attributes >>> 8 & 0x3F));
+        writeReference(generator, "Launchpoint", 10_000 + (attributes >>> 14 & 0x3FF));
+        writeReference(generator, "System", 5_000 + (attributes >>> 14 & 0x3FF));
+        generator.writeStringField("Status", status);
+        generator.writeBooleanField("AdHoc", (attributes >>> 24 & 0x7) == 0);
+        generator.writeNumberField("ChangeDetections", attributes >>> 27 & 0x7);
+        generator.writeNumberField("Alerts", attributes >>> 30 & 0x3);
+        generator.writeBooleanField("Latest", true);
+        generator.writeNumberField("ExitCode", "Failed".equals(status) ? 1 : 0);
+        generator.writeStringField("ExitMessage", "");
+        writeTimestampField(generator, buffer, "CreatedOn", timestamp);
+        writeTimestampField(generator, buffer, "UpdatedOn", timestamp);
+        writeTimestampField(generator, buffer, "ScheduledAt", timestamp);
+        writeTimestampField(generator, buffer, "ProcessingAt", timestamp);
+        writeTimestampField(generator, buffer, "RunningAt", timestamp);
+        writeTimestampField(generator, buffer, "FinishedAt", timestamp);
+        generator.writeNumberField("PayloadSizeBytes", attributes >>> 32 & 0xFFFFF);
+        generator.writeEndObject();
+    }
+
+    private static void writeLogLine(JsonGenerator generator,
+                                     char[] buffer,
+                                     long sequence,
+                                     long timestamp,
+                                     long payload) throws IOException {
+        long timelineId = FIRST_TIMELINE_ID + (payload >>> 8);
+        int line = (int) (payload & 0xFF);
+        generator.writeStartObject();
+        generator.writeNumberField("Sequence", sequence);
+        writeTimestampField(generator, buffer, "Timestamp", timestamp);
+        generator.writeStringField("Type", "PayloadProcessingLog");
+        generator.writeNumberField("Timeline", timelineId);
+        generator.writeStringField("Message", LOG_MESSAGES.get(line % LOG_MESSAGES.size()));
+        generator.writeStringField("Category", LOG_CATEGORIES.get(line % LOG_CATEGORIES.size()));
+        generator.writeEndObject();
+    }
+
+    private static void writeReference(JsonGenerator generator, String name, long id) throws IOException {
+        generator.writeObjectFieldStart(name);
+        generator.writeNumberField("ID", id);
+        generator.writeEndObject();
+    }
+
+    private static void writeTimestampField(JsonGenerator generator, char[] buffer, String name, long timestamp)
+            throws IOException {
+        int length = TimestampFormat.format(buffer, timestamp, TimestampFormat.SLASH_DATE_TIME);
+        generator.writeFieldName(name);
+        generator.writeString(buffer, 0, length);
+    }
+
+    private JsonGenerator startJsonArray(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, 0);
+        JsonGenerator generator = jsonFactory.createGenerator(exchange.getResponseBody());
+        generator.writeStartArray();
+        return generator;
+    }
+
+    private static void respondText(HttpExchange exchange, int statusCode, String message) throws IOException {
+        byte[] body = message.getBytes();
+        exchange.getResponseHeaders().set("Content-Type", "text/plain");
+        exchange.sendResponseHeaders(statusCode, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    // Everything parsed later is checked here, before any response headers are sent.
+    private static void validateParameters(Endpoint endpoint, Map<String, String> query, Map<String, String> pathParams) {
+        for (String name : List.of("since", "limit", "timeline")) {
+            if (query.containsKey(name)) {
+                parseNumber(query.get(name), name);
+            }
+        }
+        if (endpoint == Endpoint.TIMELINE_DETAIL) {
+            parseNumber(pathParams.get("TimelineID"), "TimelineID");
+        }
+    }
+
+    private static int parseLimit(String value) {
+        if (value == null) {
+            return DEFAULT_LIMIT;
+        }
+        return (int) Math.max(1, Math.min(MAX_LIMIT, parseNumber(value, "limit")));
+    }
+
+    private static long parseNumber(String value, String name) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(name + " must be a valid integer: " + value, ex);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> values = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return values;
+        }
+        for (String pair : rawQuery.split("&")) {
+            String[] parts = pair.split("=", 2);
+            String name = URLDecoder.decode(parts[0], StandardCharsets.UTF_8);
+            values.putIfAbsent(name, parts.length == 2 ? URLDecoder.decode(parts[1], StandardCharsets.UTF_8) : "");
+        }
+        return values;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.liongardmock;
+
+public record EventFeedConfig(
+        int entriesPerSecond,
+        int capacity
+) {
+    public static final int DEFAULT_CAPACITY = 1 << 18;
+    // Four log lines are kept per entry, so this bounds the log ring at 2^26 slots (1 GiB).
+    public static final int MAX_CAPACITY = 1 << 24;
+
+    public EventFeedConfig {
+        if (entriesPerSecond < 0) {
+            throw new IllegalArgumentException("Event feed rate must not be negative: " + entriesPerSecond);
+        }
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Event feed capacity must be between 1 and " + MAX_CAPACITY + ": " + capacity);
+        }
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Event feed capacity must be a power of two: " + capacity);
+        }
+    }
+
+    public static EventFeedConfig disabled() {
+        return new EventFeedConfig(0, DEFAULT_CAPACITY);
+    }
+
+    public boolean enabled() {
+        return entriesPerSecond > 0;
+    }
+}
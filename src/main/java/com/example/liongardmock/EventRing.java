@@ -0,0 +1,70 @@
+package com.example.liongardmock;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Single-producer ring of (timestamp, payload) pairs. Readers never lock or copy: they read slots in place and
+// discard any slot the producer claimed for a newer sequence while it was being read, seqlock style.
+final class EventRing {
+    private final int capacity;
+    private final int mask;
+    private final long[] timestamps;
+    private final long[] payloads;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final AtomicLong published = new AtomicLong(-1);
+
+    EventRing(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.timestamps = new long[capacity];
+        this.payloads = new long[capacity];
+    }
+
+    long append(long timestamp, long payload) {
+        long sequence = published.getPlain() + 1;
+        claimed.setPlain(sequence);
+        VarHandle.storeStoreFence();
+        int slot = (int) (sequence & mask);
+        timestamps[slot] = timestamp;
+        payloads[slot] = payload;
+        published.setRelease(sequence);
+        return sequence;
+    }
+
+    long head() {
+        return published.getAcquire();
+    }
+
+    long oldest() {
+        return Math.max(0, claimed.getAcquire() - capacity + 1);
+    }
+
+    int read(long fromSequence, int maxCount, EntryWriter writer) throws IOException {
+        long head = head();
+        long sequence = Math.max(fromSequence, oldest());
+        int written = 0;
+        while (sequence <= head && written < maxCount) {
+            int slot = (int) (sequence & mask);
+            long timestamp = timestamps[slot];
+            long payload = payloads[slot];
+            VarHandle.loadLoadFence();
+            long overwrittenBefore = claimed.getAcquire() - capacity + 1;
+            if (sequence < overwrittenBefore) {
+                sequence = overwrittenBefore;
+                continue;
+            }
+            writer.write(sequence, timestamp, payload);
+            written++;
+            sequence++;
+        }
+        return written;
+    }
+
+    interface EntryWriter {
+        void write(long sequence, long timestamp, long payload) throws IOException;
+    }
+}
@@ -1,19 +1,22 @@
 package com.example.liongardmock;
 
-import com.fasterxml.jackson.databind.JsonNode;
-
 import java.io.IOException;
+import java.net.URI;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public final class LiongardMockServer {
     private static final int DEFAULT_PORT = 8080;
     private static final Path DEFAULT_SPEC_PATH = Paths.get("Liongard_v1_OAS.yaml");
     private static final Path DEFAULT_MOCK_DIR = Paths.get("mock-data");
+    private static final int DEFAULT_SNAPSHOT_INTERVAL_SECONDS = 60;
 
     private LiongardMockServer() {
     }
@@ -29,16 +32,30 @@ public final class LiongardMockServer {
         Path specPath = options.containsKey("spec") ? Paths.get(options.get("spec")) : DEFAULT_SPEC_PATH;
         Path mockDir = options.containsKey("mock-dir") ? Paths.get(options.get("mock-dir")) : DEFAULT_MOCK_DIR;
 
-        OpenApiSpecLoader loader = new OpenApiSpecLoader();
-        JsonNode spec = loadSpec(loader, specPath);
-
-        MockDataGenerator generator = new MockDataGenerator(spec);
-        List<RouteConfig> routes = generator.prepareMocks(mockDir);
+        System.out.printf(Locale.ROOT, "Loading OpenAPI spec from %s%n", specPath);
+        CompiledSpec spec = CompiledSpec.load(specPath, mockDir);
         System.out.printf(Locale.ROOT, "Generated %d routes (%d new mock files created).%n",
-                routes.size(), generator.newlyCreatedFileCount());
+                spec.routes().size(), spec.newlyCreatedFileCount());
 
-        MockApiServer server = new MockApiServer(port, routes);
-        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        AdmissionConfig admissionConfig = parseAdmissionConfig(options);
+        DynamicDataConfig dynamicDataConfig = parseDynamicDataConfig(options);
+        EventFeedConfig eventFeedConfig = parseEventFeedConfig(options);
+        ProxyConfig proxyConfig = parseProxyConfig(options, mockDir);
+        MockStateStore state = openState(options);
+        MockApiServer server = MockApiServer.builder()
+                .port(port)
+                .spec(spec)
+                .reloadResponseFiles(true)
+                .admission(admissionConfig)
+                .dynamicData(dynamicDataConfig)
+                .eventFeed(eventFeedConfig)
+                .proxy(proxyConfig)
+                .state(state)
+                .build();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            closeState(state);
+        }));
         server.start();
         System.out.println("Press Ctrl+C to stop the mock server.");
 
@@ -70,9 +87,89 @@ public final class LiongardMockServer {
         }
     }
 
-    private static JsonNode loadSpec(OpenApiSpecLoader loader, Path specPath) throws IOException {
-        System.out.printf(Locale.ROOT, "Loading OpenAPI spec from %s%n", specPath);
-        return loader.load(specPath);
+    private static AdmissionConfig parseAdmissionConfig(Map<String, String> options) {
+        return new AdmissionConfig(
+                parseInt(options, "max-concurrency", 0),
+                parseInt(options, "route-concurrency", 0),
+                parseInt(options, "max-queue", 0),
+                Duration.ofMillis(parseInt(options, "queue-timeout-ms", 0)),
+                Boolean.parseBoolean(options.getOrDefault("adaptive-concurrency", "false")),
+                parseInt(options, "retry-after", 1));
+    }
+
+    private static DynamicDataConfig parseDynamicDataConfig(Map<String, String> options) {
+        boolean enabled = Boolean.parseBoolean(options.getOrDefault("dynamic-data", "false"));
+        long seed;
+        try {
+            seed = Long.parseLong(options.getOrDefault("seed", "0"));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("--seed must be a valid integer: " + options.get("seed"), ex);
+        }
+        if (enabled) {
+            System.out.printf(Locale.ROOT, "Generating fresh response payloads per request (seed %d).%n", seed);
+        }
+        return new DynamicDataConfig(enabled, seed);
+    }
+
+    private static EventFeedConfig parseEventFeedConfig(Map<String, String> options) {
+        int rate = parseInt(options, "event-feed-rate", 0);
+        int capacity = parseInt(options, "event-feed-capacity", EventFeedConfig.DEFAULT_CAPACITY);
+        if (capacity <= 0 || capacity > EventFeedConfig.MAX_CAPACITY) {
+            throw new IllegalArgumentException("--event-feed-capacity must be between 1 and "
+                    + EventFeedConfig.MAX_CAPACITY + ": " + capacity);
+        }
+        int roundedCapacity = Integer.bitCount(capacity) == 1 ? capacity : Integer.highestOneBit(capacity) << 1;
+        if (rate > 0) {
+            System.out.printf(Locale.ROOT, "Simulating %d timeline entries per second (retaining %d).%n",
+                    rate, roundedCapacity);
+        }
+        return new EventFeedConfig(rate, roundedCapacity);
+    }
+
+    private static ProxyConfig parseProxyConfig(Map<String, String> options, Path mockDir) {
+        String upstream = options.get("proxy");
+        if (upstream == null || upstream.isBlank()) {
+            return ProxyConfig.disabled();
+        }
+        Set<String> operations = Arrays.stream(options.getOrDefault("proxy-operations", "").split(","))
+                .map(String::trim)
+                .filter(operation -> !operation.isEmpty())
+                .collect(Collectors.toSet());
+        Duration timeout = Duration.ofMillis(parseInt(options, "proxy-timeout-ms",
+                (int) ProxyConfig.DEFAULT_TIMEOUT.toMillis()));
+        ProxyConfig config = new ProxyConfig(URI.create(upstream), operations, mockDir, timeout);
+        System.out.printf(Locale.ROOT, "Proxying %s to %s and recording responses into %s.%n",
+                operations.isEmpty() ? "unmatched requests" : "unmatched requests and " + String.join(", ", operations),
+                upstream, mockDir);
+        return config;
+    }
+
+    private static MockStateStore openState(Map<String, String> options) throws IOException {
+        if (!options.containsKey("state-dir")) {
+            return MockStateStore.inMemory();
+        }
+        Duration snapshotInterval = Duration.ofSeconds(parseInt(options, "snapshot-interval", DEFAULT_SNAPSHOT_INTERVAL_SECONDS));
+        return MockStateStore.open(Paths.get(options.get("state-dir")), snapshotInterval);
+    }
+
+    private static void closeState(MockStateStore state) {
+        try {
+            state.close();
+        } catch (IOException ex) {
+            System.err.println("Failed to persist mock state on shutdown: " + ex.getMessage());
+        }
+    }
+
+    private static int parseInt(Map<String, String> options, String name, int defaultValue) {
+        String value = options.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("--" + name + " must be a valid integer: " + value, ex);
+        }
     }
 
     private static void keepRunning() {
@@ -88,5 +185,10 @@ public final class LiongardMockServer {
     private static void printUsage() {
         System.out.println("Liongard API mock server");
         System.out.println("Usage: java -jar liongard-mock.jar [--port=PORT] [--spec=PATH_TO_OAS] [--mock-dir=PATH]");
+        System.out.println("       [--max-concurrency=N] [--route-concurrency=N] [--max-queue=N] [--queue-timeout-ms=MS]");
+        System.out.println("       [--adaptive-concurrency=true] [--retry-after=SECONDS]");
+        System.out.println("       [--dynamic-data=true] [--seed=N] [--event-feed-rate=N] [--event-feed-capacity=N]");
+        System.out.println("       [--state-dir=PATH] [--snapshot-interval=SECONDS]");
+        System.out.println("       [--proxy=UPSTREAM_URL] [--proxy-operations=OP1,OP2|*] [--proxy-timeout-ms=MS]");
     }
 }
@@ -1,5 +1,8 @@
 package com.example.liongardmock;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
@@ -8,14 +11,18 @@ import com.sun.net.httpserver.HttpServer;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.InetSocketAddress;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -24,52 +31,232 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
-public final class MockApiServer {
-    private final int port;
+public final class MockApiServer implements AutoCloseable {
+    private static final byte[] EMPTY_BODY = new byte[0];
+
+    private final int requestedPort;
+    private final boolean quiet;
     private final List<CompiledRoute> routes;
+    private final AdmissionController admission;
+    private final EventFeed eventFeed;
+    private final MockStateStore state;
+    private final RecordingProxy proxy;
     private final ExecutorService executor;
     private HttpServer server;
 
     public MockApiServer(int port, List<RouteConfig> routeConfigs) {
-        this.port = port;
-        this.routes = routeConfigs.stream().map(CompiledRoute::new).toList();
+        this(builder().port(port).routes(routeConfigs));
+    }
+
+    private MockApiServer(Builder builder) {
+        this.requestedPort = builder.port;
+        this.quiet = builder.quiet;
+        this.state = builder.state == null ? MockStateStore.inMemory() : builder.state;
+        this.admission = builder.admissionConfig.enabled() ? new AdmissionController(builder.admissionConfig) : null;
+        this.eventFeed = builder.eventFeedConfig.enabled() ? new EventFeed(builder.eventFeedConfig) : null;
+        DynamicPayloads dynamicPayloads = builder.dynamicDataConfig.enabled()
+                ? new DynamicPayloads(builder.dynamicDataConfig.seed())
+                : null;
+        try {
+            this.proxy = builder.proxyConfig.enabled() ? new RecordingProxy(builder.proxyConfig) : null;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to open the proxy recording index", ex);
+        }
+        Map<Path, byte[]> responseBodies = builder.reloadResponseFiles ? Map.of() : builder.spec.responseBodies();
+        List<RouteConfig> routeConfigs = builder.spec.routes();
+        List<RoutePattern> patterns = builder.spec.patterns();
+        List<CompiledRoute> compiled = new ArrayList<>(routeConfigs.size());
+        for (int i = 0; i < routeConfigs.size(); i++) {
+            compiled.add(new CompiledRoute(routeConfigs.get(i),
+                    patterns.get(i),
+                    admission == null ? null : admission.newRouteLimiter(),
+                    dynamicPayloads,
+                    eventFeed,
+                    state,
+                    proxy != null && proxy.forwards(routeConfigs.get(i).operationId()) ? proxy : null,
+                    responseBodies));
+        }
+        this.routes = List.copyOf(compiled);
+        try {
+            for (Map.Entry<String, ResponseOverride> entry : builder.overrides.entrySet()) {
+                state.putOverride(entry.getKey(), entry.getValue());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to store response overrides", ex);
+        }
         this.executor = Executors.newCachedThreadPool();
     }
 
+    public static Builder builder() {
+        return new Builder();
+    }
+
     public void start() throws IOException {
         if (routes.isEmpty()) {
             throw new IllegalStateException("No routes were generated from the OpenAPI specification.");
         }
-        server = HttpServer.create(new InetSocketAddress(port), 0);
-        server.createContext("/", new RoutingHandler(routes));
+        server = HttpServer.create(new InetSocketAddress(requestedPort), 0);
+        server.createContext("/", new RoutingHandler(routes, admission, proxy));
+        server.createContext(StateAdminHandler.CONTEXT_PATH, new StateAdminHandler(state, routesByOperation()));
         server.setExecutor(executor);
+        if (eventFeed != null) {
+            eventFeed.start();
+        }
         server.start();
-        System.out.printf(Locale.ROOT, "[%s] Mock API server listening on port %d with %d routes.%n",
-                Instant.now(), port, routes.size());
+        if (!quiet) {
+            System.out.printf(Locale.ROOT, "[%s] Mock API server listening on port %d with %d routes.%n",
+                    Instant.now(), port(), routes.size());
+        }
+    }
+
+    public int port() {
+        return server == null ? requestedPort : server.getAddress().getPort();
+    }
+
+    public URI baseUri() {
+        return URI.create("http://localhost:" + port());
+    }
+
+    public MockStateStore state() {
+        return state;
+    }
+
+    private Map<String, RouteConfig> routesByOperation() {
+        Map<String, RouteConfig> result = new HashMap<>();
+        for (CompiledRoute route : routes) {
+            result.putIfAbsent(route.config.operationId(), route.config);
+        }
+        return result;
     }
 
     public void stop() {
         if (server != null) {
             server.stop(0);
         }
+        if (eventFeed != null) {
+            eventFeed.stop();
+        }
+        if (proxy != null) {
+            proxy.close();
+        }
         executor.shutdownNow();
     }
 
+    @Override
+    public void close() {
+        stop();
+    }
+
+    public static final class Builder {
+        private int port;
+        private CompiledSpec spec;
+        private boolean reloadResponseFiles;
+        private boolean quiet;
+        private AdmissionConfig admissionConfig = AdmissionConfig.unlimited();
+        private DynamicDataConfig dynamicDataConfig = DynamicDataConfig.disabled();
+        private EventFeedConfig eventFeedConfig = EventFeedConfig.disabled();
+        private ProxyConfig proxyConfig = ProxyConfig.disabled();
+        private MockStateStore state;
+        private final Map<String, ResponseOverride> overrides = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Builder spec(CompiledSpec spec) {
+            this.spec = Objects.requireNonNull(spec);
+            return this;
+        }
+
+        public Builder routes(List<RouteConfig> routes) {
+            return spec(CompiledSpec.of(routes));
+        }
+
+        public Builder reloadResponseFiles(boolean reloadResponseFiles) {
+            this.reloadResponseFiles = reloadResponseFiles;
+            return this;
+        }
+
+        public Builder quiet(boolean quiet) {
+            this.quiet = quiet;
+            return this;
+        }
+
+        public Builder admission(AdmissionConfig admissionConfig) {
+            this.admissionConfig = Objects.requireNonNull(admissionConfig);
+            return this;
+        }
+
+        public Builder dynamicData(DynamicDataConfig dynamicDataConfig) {
+            this.dynamicDataConfig = Objects.requireNonNull(dynamicDataConfig);
+            return this;
+        }
+
+        public Builder eventFeed(EventFeedConfig eventFeedConfig) {
+            this.eventFeedConfig = Objects.requireNonNull(eventFeedConfig);
+            return this;
+        }
+
+        public Builder proxy(ProxyConfig proxyConfig) {
+            this.proxyConfig = Objects.requireNonNull(proxyConfig);
+            return this;
+        }
+
+        public Builder state(MockStateStore state) {
+            this.state = Objects.requireNonNull(state);
+            return this;
+        }
+
+        public Builder override(String operationId, ResponseOverride override) {
+            overrides.put(Objects.requireNonNull(operationId), Objects.requireNonNull(override));
+            return this;
+        }
+
+        public Builder override(String operationId, int statusCode, String jsonBody) {
+            return override(operationId,
+                    new ResponseOverride(statusCode, "application/json", jsonBody.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        public MockApiServer build() {
+            if (spec == null) {
+                throw new IllegalStateException("A compiled spec or route list is required.");
+            }
+            Set<String> operationIds = spec.routes().stream()
+                    .map(RouteConfig::operationId)
+                    .collect(Collectors.toSet());
+            for (String operationId : overrides.keySet()) {
+                if (!operationIds.contains(operationId)) {
+                    throw new IllegalArgumentException("Cannot override unknown operationId " + operationId);
+                }
+            }
+            return new MockApiServer(this);
+        }
+    }
+
     private static final class RoutingHandler implements HttpHandler {
         private final List<CompiledRoute> routes;
+        private final AdmissionController admission;
+        private final RecordingProxy proxy;
 
-        private RoutingHandler(List<CompiledRoute> routes) {
+        private RoutingHandler(List<CompiledRoute> routes, AdmissionController admission, RecordingProxy proxy) {
             this.routes = routes;
+            this.admission = admission;
+            this.proxy = proxy;
         }
 
         @Override
         public void handle(HttpExchange exchange) throws IOException {
             try (exchange; InputStream requestBody = exchange.getRequestBody()) {
-                drainRequestBody(requestBody);
+                byte[] body = readRequestBody(requestBody);
                 String method = exchange.getRequestMethod().toUpperCase(Locale.ROOT);
                 String path = exchange.getRequestURI().getPath();
 
@@ -78,7 +265,11 @@ public final class MockApiServer {
                         .toList();
 
                 if (pathMatches.isEmpty()) {
-                    respondNotFound(exchange, path);
+                    if (proxy != null) {
+                        admitAndRespond(exchange, null, () -> proxy.respond(exchange, null, body));
+                    } else {
+                        respondNotFound(exchange, path);
+                    }
                     return;
                 }
 
@@ -87,17 +278,38 @@ public final class MockApiServer {
                         .findFirst();
 
                 if (routeMatch.isEmpty()) {
-                    respondMethodNotAllowed(exchange, pathMatches);
+                    if (proxy != null) {
+                        admitAndRespond(exchange, null, () -> proxy.respond(exchange, null, body));
+                    } else {
+                        respondMethodNotAllowed(exchange, pathMatches);
+                    }
                     return;
                 }
 
                 CompiledRoute route = routeMatch.get();
-                route.respond(exchange, method, path);
+                admitAndRespond(exchange, route.limiter, () -> route.respond(exchange, method, path, body));
             } catch (Exception ex) {
                 respondWithError(exchange, ex);
             }
         }
 
+        private void admitAndRespond(HttpExchange exchange,
+                                     ConcurrencyLimiter routeLimiter,
+                                     Responder responder) throws IOException, InterruptedException {
+            if (admission == null) {
+                responder.respond();
+                return;
+            }
+            AdmissionController.Permit permit = admission.tryAdmit(routeLimiter);
+            if (permit == null) {
+                respondOverloaded(exchange);
+                return;
+            }
+            try (permit) {
+                responder.respond();
+            }
+        }
+
         private void respondNotFound(HttpExchange exchange, String path) throws IOException {
             String message = "No mock route found for " + path;
             byte[] body = message.getBytes();
@@ -117,6 +329,18 @@ public final class MockApiServer {
             exchange.sendResponseHeaders(405, -1);
         }
 
+        private void respondOverloaded(HttpExchange exchange) throws IOException {
+            String message = "Mock server is at its concurrency limit; retry later";
+            byte[] body = message.getBytes();
+            Headers headers = exchange.getResponseHeaders();
+            headers.set("Content-Type", "text/plain");
+            headers.set("Retry-After", String.valueOf(admission.retryAfterSeconds()));
+            exchange.sendResponseHeaders(503, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        }
+
         private void respondWithError(HttpExchange exchange, Exception ex) throws IOException {
             String message = "Mock server internal error: " + ex.getMessage();
             byte[] body = message.getBytes();
@@ -127,20 +351,50 @@ public final class MockApiServer {
             }
         }
 
-        private void drainRequestBody(InputStream requestBody) throws IOException {
+        private byte[] readRequestBody(InputStream requestBody) throws IOException {
+            if (proxy != null) {
+                return requestBody.readAllBytes();
+            }
             requestBody.transferTo(OutputStream.nullOutputStream());
+            return EMPTY_BODY;
         }
     }
 
+    @FunctionalInterface
+    private interface Responder {
+        void respond() throws IOException;
+    }
+
     private static final class CompiledRoute {
         private final RouteConfig config;
         private final Pattern pathPattern;
         private final Map<String, String> parameterGroupNames;
+        private final Map<Path, byte[]> responseBodies;
+        private final ConcurrencyLimiter limiter;
+        private final DynamicPayloads dynamicPayloads;
+        private final EventFeed eventFeed;
+        private final EventFeed.Endpoint feedEndpoint;
+        private final MockStateStore state;
+        private final RecordingProxy proxy;
 
-        private CompiledRoute(RouteConfig config) {
+        private CompiledRoute(RouteConfig config,
+                              RoutePattern routePattern,
+                              ConcurrencyLimiter limiter,
+                              DynamicPayloads dynamicPayloads,
+                              EventFeed eventFeed,
+                              MockStateStore state,
+                              RecordingProxy proxy,
+                              Map<Path, byte[]> responseBodies) {
             this.config = Objects.requireNonNull(config);
-            this.parameterGroupNames = buildGroupNames(config.pathParameters());
-            this.pathPattern = Pattern.compile(toRegex(config.pathTemplate(), parameterGroupNames));
+            this.pathPattern = routePattern.pattern();
+            this.parameterGroupNames = routePattern.parameterGroupNames();
+            this.responseBodies = responseBodies;
+            this.state = state;
+            this.proxy = proxy;
+            this.limiter = limiter;
+            this.dynamicPayloads = dynamicPayloads;
+            this.eventFeed = eventFeed;
+            this.feedEndpoint = eventFeed == null ? null : eventFeed.endpointFor(config);
         }
 
         private boolean matchesPath(String path) {
@@ -151,22 +405,42 @@ public final class MockApiServer {
             return config.httpMethod().equalsIgnoreCase(method);
         }
 
-        private void respond(HttpExchange exchange, String method, String path) throws IOException {
+        private void respond(HttpExchange exchange, String method, String path, byte[] requestBody) throws IOException {
             Matcher matcher = pathPattern.matcher(path);
             if (!matcher.matches()) {
                 respondWithMismatch(exchange, path);
                 return;
             }
             Map<String, String> pathParams = extractParams(matcher);
+            ResponseOverride override = state.override(config.operationId());
+            if (override != null) {
+                respondWithOverride(exchange, method, override, pathParams);
+                return;
+            }
+            if (proxy != null) {
+                proxy.respond(exchange, config.operationId(), requestBody);
+                return;
+            }
+            if (feedEndpoint != null) {
+                eventFeed.respond(feedEndpoint, exchange, pathParams);
+                return;
+            }
             MockResponseConfig response = config.responseConfig();
             Headers headers = exchange.getResponseHeaders();
             if (response.mediaType() != null && response.hasBody()) {
                 headers.set("Content-Type", response.mediaType());
             }
 
-            boolean shouldWriteBody = response.hasBody() && !"HEAD".equalsIgnoreCase(method) && response.bodyFile() != null;
+            boolean isHead = "HEAD".equalsIgnoreCase(method);
+            if (dynamicPayloads != null && response.hasBody() && response.bodyPlan() != null && !isHead) {
+                dynamicPayloads.write(exchange, response, pathParams);
+                return;
+            }
+
+            boolean shouldWriteBody = response.hasBody() && !isHead && response.bodyFile() != null;
             if (shouldWriteBody) {
-                byte[] payload = Files.readAllBytes(response.bodyFile());
+                byte[] cached = responseBodies.get(response.bodyFile());
+                byte[] payload = cached != null ? cached : Files.readAllBytes(response.bodyFile());
                 exchange.sendResponseHeaders(response.statusCode(), payload.length);
                 try (OutputStream os = exchange.getResponseBody()) {
                     os.write(applyParamSubstitutions(payload, pathParams));
@@ -176,6 +450,25 @@ public final class MockApiServer {
             }
         }
 
+        private void respondWithOverride(HttpExchange exchange,
+                                         String method,
+                                         ResponseOverride override,
+                                         Map<String, String> pathParams) throws IOException {
+            boolean shouldWriteBody = override.body().length > 0 && !"HEAD".equalsIgnoreCase(method);
+            if (override.mediaType() != null && shouldWriteBody) {
+                exchange.getResponseHeaders().set("Content-Type", override.mediaType());
+            }
+            if (shouldWriteBody) {
+                byte[] payload = applyParamSubstitutions(override.body(), pathParams);
+                exchange.sendResponseHeaders(override.statusCode(), payload.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(payload);
+                }
+            } else {
+                exchange.sendResponseHeaders(override.statusCode(), -1);
+            }
+        }
+
         private byte[] applyParamSubstitutions(byte[] payload, Map<String, String> pathParams) {
             if (pathParams.isEmpty()) {
                 return payload;
@@ -209,56 +502,26 @@ public final class MockApiServer {
                 os.write(body);
             }
         }
+    }
 
-        private static Map<String, String> buildGroupNames(List<String> parameters) {
-            Map<String, String> result = new HashMap<>();
-            for (String parameter : parameters) {
-                String sanitized = sanitizeGroupName(parameter);
-                result.put(parameter, sanitized);
-            }
-            return result;
-        }
-
-        private static String toRegex(String template, Map<String, String> groupNames) {
-            StringBuilder regex = new StringBuilder("^");
-            int index = 0;
-            while (index < template.length()) {
-                char ch = template.charAt(index);
-                if (ch == '{') {
-                    int end = template.indexOf('}', index);
-                    if (end < 0) {
-                        throw new IllegalArgumentException("Unmatched '{' in path template: " + template);
-                    }
-                    String originalName = template.substring(index + 1, end);
-                    String groupName = groupNames.getOrDefault(originalName, sanitizeGroupName(originalName));
-                    regex.append("(?<").append(groupName).append(">[^/]+)");
-                    index = end + 1;
-                } else {
-                    if (".[]{}()*+-?^$|".indexOf(ch) >= 0) {
-                        regex.append('\\');
-                    }
-                    regex.append(ch);
-                    index++;
-                }
-            }
-            regex.append("$");
-            return regex.toString();
-        }
-
-        private static String sanitizeGroupName(String name) {
-            StringBuilder sanitized = new StringBuilder();
-            for (int i = 0; i < name.length(); i++) {
-                char ch = name.charAt(i);
-                if (Character.isLetterOrDigit(ch)) {
-                    sanitized.append(ch);
-                } else {
-                    sanitized.append('_');
-                }
-            }
-            if (sanitized.length() == 0 || !Character.isLetter(sanitized.charAt(0))) {
-                sanitized.insert(0, 'p');
+    private static final class DynamicPayloads {
+        private final long seed;
+        private final AtomicLong requestCounter = new AtomicLong();
+        private final JsonFactory jsonFactory = new ObjectMapper().getFactory();
+
+        private DynamicPayloads(long seed) {
+            this.seed = seed;
+        }
+
+        private void write(HttpExchange exchange, MockResponseConfig response, Map<String, String> pathParams)
+                throws IOException {
+            long requestNumber = requestCounter.getAndIncrement();
+            exchange.getResponseHeaders().set("X-Mock-Request-Number", String.valueOf(requestNumber));
+            exchange.sendResponseHeaders(response.statusCode(), 0);
+            try (OutputStream os = exchange.getResponseBody();
+                 JsonGenerator generator = jsonFactory.createGenerator(os)) {
+                response.bodyPlan().write(generator, seed, requestNumber, pathParams);
             }
-            return sanitized.toString();
         }
     }
 }
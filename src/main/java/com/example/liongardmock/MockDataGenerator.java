@@ -22,12 +22,14 @@ public final class MockDataGenerator {
 
     private final JsonNode specRoot;
     private final SchemaExampleGenerator exampleGenerator;
+    private final ResponsePlanCompiler planCompiler;
     private final ObjectMapper jsonMapper;
     private int createdFiles;
 
     public MockDataGenerator(JsonNode specRoot) {
         this.specRoot = specRoot;
         this.exampleGenerator = new SchemaExampleGenerator(specRoot);
+        this.planCompiler = new ResponsePlanCompiler(specRoot);
         this.jsonMapper = new ObjectMapper();
     }
 
@@ -70,6 +72,7 @@ public final class MockDataGenerator {
             return null;
         }
 
+        String baseName = buildResponseBaseName(operationNode, httpMethod, pathTemplate);
         ResponseSelection selection = pickResponse(responsesNode);
         if (selection == null) {
             return null;
@@ -89,20 +92,22 @@ public final class MockDataGenerator {
         }
         boolean hasBody = false;
         Path bodyFile = null;
+        ResponsePlan bodyPlan = null;
         if (!jsonContent.isMissingNode()) {
             JsonNode bodyExample = collectExample(jsonContent);
             if (bodyExample != null && !bodyExample.isNull()) {
                 hasBody = true;
-                String baseName = buildResponseBaseName(operationNode, httpMethod, pathTemplate);
                 String fileName = baseName + "-" + statusCodeString.replaceAll("[^0-9A-Za-z]", "_") + ".json";
                 bodyFile = mockDataDir.resolve(fileName);
                 writeExampleIfAbsent(bodyFile, bodyExample);
+                JsonNode schema = jsonContent.get("schema");
+                bodyPlan = schema == null ? null : planCompiler.compile(schema, pathTemplate);
             }
         }
 
         List<String> pathParameters = extractPathParameters(pathTemplate);
-        MockResponseConfig responseConfig = new MockResponseConfig(statusCode, mediaType, bodyFile, hasBody);
-        return new RouteConfig(httpMethod, pathTemplate, pathParameters, responseConfig);
+        MockResponseConfig responseConfig = new MockResponseConfig(statusCode, mediaType, bodyFile, hasBody, bodyPlan);
+        return new RouteConfig(baseName, httpMethod, pathTemplate, pathParameters, responseConfig);
     }
 
     private JsonNode collectExample(JsonNode jsonContent) {
@@ -6,6 +6,7 @@ public record MockResponseConfig(
         int statusCode,
         String mediaType,
         Path bodyFile,
-        boolean hasBody
+        boolean hasBody,
+        ResponsePlan bodyPlan
 ) {
 }
@@ -0,0 +1,206 @@
+package com.example.liongardmock;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public final class MockStateStore implements Closeable {
+    private static final long DURABLE_TIMEOUT_MILLIS = 30_000;
+
+    private final Path directory;
+    private final Map<String, ResponseOverride> overrides;
+    private final StateJournal journal;
+    private final ScheduledExecutorService snapshotScheduler;
+    private final Object mutationLock = new Object();
+    private final Object snapshotLock = new Object();
+    // Guarded by mutationLock: sequences appended but not yet durable or failed, and the sequence last applied per key.
+    private final NavigableSet<Long> unresolved = new TreeSet<>();
+    private final Map<String, Long> appliedSequences = new HashMap<>();
+    private long lastSequence;
+    private long snapshotSequence;
+
+    private MockStateStore(Path directory,
+                           Map<String, ResponseOverride> overrides,
+                           long lastSequence,
+                           long snapshotSequence,
+                           Duration snapshotInterval) throws IOException {
+        this.directory = directory;
+        this.overrides = overrides;
+        this.lastSequence = lastSequence;
+        this.snapshotSequence = snapshotSequence;
+        this.journal = directory == null ? null : new StateJournal(directory, lastSequence + 1);
+        if (directory != null && snapshotInterval != null && !snapshotInterval.isZero()) {
+            this.snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "state-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long periodMillis = snapshotInterval.toMillis();
+            snapshotScheduler.scheduleWithFixedDelay(this::snapshotQuietly, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.snapshotScheduler = null;
+        }
+    }
+
+    public static MockStateStore inMemory() {
+        try {
+            return new MockStateStore(null, new ConcurrentHashMap<>(), 0L, 0L, null);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public static MockStateStore open(Path directory, Duration snapshotInterval) throws IOException {
+        Files.createDirectories(directory);
+        long started = System.nanoTime();
+        StateSnapshot snapshot = StateSnapshot.read(directory);
+        Map<String, ResponseOverride> overrides = snapshot.overrides();
+        long lastSequence = StateJournal.replay(directory, snapshot.lastSequence(), record -> apply(overrides, record));
+        System.out.printf(Locale.ROOT, "Recovered %d state entries from %s (snapshot at #%d, journal up to #%d) in %d ms.%n",
+                overrides.size(), directory, snapshot.lastSequence(), lastSequence,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return new MockStateStore(directory, overrides, lastSequence, snapshot.lastSequence(), snapshotInterval);
+    }
+
+    public ResponseOverride override(String operationId) {
+        return overrides.get(operationId);
+    }
+
+    public Map<String, ResponseOverride> overrides() {
+        return Collections.unmodifiableMap(overrides);
+    }
+
+    public void putOverride(String operationId, ResponseOverride override) throws IOException {
+        mutate(StateRecord.PUT_OVERRIDE, operationId, override);
+    }
+
+    public void removeOverride(String operationId) throws IOException {
+        mutate(StateRecord.REMOVE_OVERRIDE, operationId, null);
+    }
+
+    public void snapshot() throws IOException {
+        if (journal == null) {
+            return;
+        }
+        synchronized (snapshotLock) {
+            long sequence;
+            CompletableFuture<Void> rolled;
+            synchronized (mutationLock) {
+                if (lastSequence == snapshotSequence) {
+                    return;
+                }
+                sequence = lastSequence;
+                rolled = journal.roll(sequence + 1);
+            }
+            StateJournal.await(rolled, DURABLE_TIMEOUT_MILLIS);
+            // Changes up to the snapshot sequence must be applied or failed before the map is copied. Later changes
+            // may already be visible too; they live in the new segment and replay on top of the snapshot.
+            StateSnapshot snapshot;
+            synchronized (mutationLock) {
+                awaitResolved(sequence);
+                snapshot = new StateSnapshot(sequence, new HashMap<>(overrides));
+            }
+            // write() returns once the snapshot and its directory entry are durable; only then can the segments go.
+            snapshot.write(directory);
+            journal.deleteSegmentsBefore(sequence + 1);
+            synchronized (mutationLock) {
+                snapshotSequence = sequence;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        if (journal != null) {
+            try {
+                snapshot();
+            } finally {
+                journal.close();
+            }
+        }
+    }
+
+    // A change becomes visible only once it is durable, so a failed write never leaves state that a restart would lose.
+    private void mutate(byte type, String operationId, ResponseOverride override) throws IOException {
+        CompletableFuture<Void> applied;
+        synchronized (mutationLock) {
+            StateRecord record = new StateRecord(++lastSequence, type, operationId, override);
+            if (journal == null) {
+                applyInOrder(record);
+                return;
+            }
+            unresolved.add(record.sequence());
+            applied = journal.append(record).whenComplete((ignored, failure) -> resolve(record, failure == null));
+        }
+        StateJournal.await(applied, DURABLE_TIMEOUT_MILLIS);
+    }
+
+    private void resolve(StateRecord record, boolean durable) {
+        synchronized (mutationLock) {
+            if (durable) {
+                applyInOrder(record);
+            }
+            unresolved.remove(record.sequence());
+            mutationLock.notifyAll();
+        }
+    }
+
+    // Durability callbacks can run out of order; an older change never overwrites a newer one for the same key.
+    private void applyInOrder(StateRecord record) {
+        Long applied = appliedSequences.get(record.operationId());
+        if (applied == null || applied < record.sequence()) {
+            apply(overrides, record);
+            appliedSequences.put(record.operationId(), record.sequence());
+        }
+    }
+
+    private void awaitResolved(long sequence) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURABLE_TIMEOUT_MILLIS);
+        try {
+            while (!unresolved.isEmpty() && unresolved.first() <= sequence) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    throw new IOException("Timed out waiting for pending state changes before a snapshot");
+                }
+                mutationLock.wait(remainingMillis);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for pending state changes", ex);
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException ex) {
+            System.err.printf(Locale.ROOT, "[%s] Failed to snapshot mock state: %s%n", Instant.now(), ex.getMessage());
+        }
+    }
+
+    private static void apply(Map<String, ResponseOverride> overrides, StateRecord record) {
+        if (record.type() == StateRecord.PUT_OVERRIDE) {
+            overrides.put(record.operationId(), record.override());
+        } else {
+            overrides.remove(record.operationId());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.liongardmock;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+
+public record ProxyConfig(
+        URI upstream,
+        Set<String> forwardedOperations,
+        Path recordDir,
+        Duration timeout
+) {
+    public static final String ALL_OPERATIONS = "*";
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+    public ProxyConfig {
+        forwardedOperations = Set.copyOf(forwardedOperations);
+        if (upstream != null) {
+            Objects.requireNonNull(recordDir, "recordDir");
+            if (upstream.getScheme() == null || upstream.getHost() == null) {
+                throw new IllegalArgumentException("Proxy upstream must be an absolute http(s) URI: " + upstream);
+            }
+        }
+    }
+
+    public static ProxyConfig disabled() {
+        return new ProxyConfig(null, Set.of(), null, DEFAULT_TIMEOUT);
+    }
+
+    public boolean enabled() {
+        return upstream != null;
+    }
+
+    public boolean forwards(String operationId) {
+        return forwardedOperations.contains(ALL_OPERATIONS) || forwardedOperations.contains(operationId);
+    }
+}
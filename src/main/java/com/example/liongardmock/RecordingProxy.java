@@ -0,0 +1,347 @@
+package com.example.liongardmock;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.CRC32;
+
+// GET and HEAD responses are cached by method, path and sorted query. The index is an append-only JSON lines file
+// next to the recorded bodies; concurrent misses for one key share a single upstream fetch. Only 2xx responses are
+// recorded, and other methods are always forwarded since their responses depend on the request body.
+final class RecordingProxy implements AutoCloseable {
+    static final String INDEX_FILE = "proxy-index.jsonl";
+
+    private static final Set<String> CACHEABLE_METHODS = Set.of("GET", "HEAD");
+
+    private static final Set<String> UNFORWARDED_HEADERS = Set.of(
+            "accept-encoding", "connection", "content-length", "expect", "host", "keep-alive",
+            "proxy-connection", "te", "trailer", "transfer-encoding", "upgrade");
+
+    private final ProxyConfig config;
+    private final String upstreamBase;
+    private final Path indexFile;
+    private final HttpClient client;
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final Map<String, Recording> index = new ConcurrentHashMap<>();
+    private final Map<String, String> fileOwners = new HashMap<>();
+    private final Map<String, CompletableFuture<Fetched>> inFlight = new ConcurrentHashMap<>();
+
+    RecordingProxy(ProxyConfig config) throws IOException {
+        this.config = config;
+        this.upstreamBase = config.upstream().toString().replaceAll("/+$", "");
+        this.indexFile = config.recordDir().resolve(INDEX_FILE);
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(config.timeout())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        Files.createDirectories(config.recordDir());
+        loadIndex();
+    }
+
+    boolean forwards(String operationId) {
+        return config.forwards(operationId);
+    }
+
+    void respond(HttpExchange exchange, String operationId, byte[] requestBody) throws IOException {
+        String method = exchange.getRequestMethod().toUpperCase(Locale.ROOT);
+        URI requestUri = exchange.getRequestURI();
+        if (!CACHEABLE_METHODS.contains(method)) {
+            forward(exchange, method, requestBody);
+            return;
+        }
+        String key = cacheKey(method, requestUri);
+
+        byte[] recordedBody = readRecorded(key);
+        if (recordedBody != null) {
+            Recording recording = index.get(key);
+            send(exchange, method, recording.statusCode(), recording.mediaType(), recordedBody, "hit");
+            return;
+        }
+
+        CompletableFuture<Fetched> fetch = new CompletableFuture<>();
+        CompletableFuture<Fetched> existing = inFlight.putIfAbsent(key, fetch);
+        if (existing != null) {
+            fetch = existing;
+        } else {
+            // A fetch for this key may have finished between the index lookup and claiming the slot.
+            recordedBody = readRecorded(key);
+            if (recordedBody != null) {
+                inFlight.remove(key, fetch);
+                Recording recording = index.get(key);
+                send(exchange, method, recording.statusCode(), recording.mediaType(), recordedBody, "hit");
+                return;
+            }
+            startFetch(key, operationId == null ? fallbackOperationId(method, requestUri.getPath()) : operationId,
+                    exchange, requestBody, fetch);
+        }
+
+        Fetched fetched = awaitFetch(exchange, fetch);
+        if (fetched != null) {
+            send(exchange, method, fetched.statusCode(), fetched.mediaType(), fetched.body(), "miss");
+        }
+    }
+
+    @Override
+    public void close() {
+        client.shutdownNow();
+    }
+
+    static String cacheKey(String method, URI requestUri) {
+        String query = requestUri.getRawQuery();
+        StringBuilder key = new StringBuilder(method).append(' ').append(requestUri.getRawPath());
+        if (query != null && !query.isEmpty()) {
+            String[] pairs = Arrays.stream(query.split("&"))
+                    .filter(pair -> !pair.isEmpty())
+                    .map(pair -> pair.indexOf('=') < 0 ? pair + "=" : pair)
+                    .sorted()
+                    .toArray(String[]::new);
+            if (pairs.length > 0) {
+                key.append('?').append(String.join("&", pairs));
+            }
+        }
+        return key.toString();
+    }
+
+    private void forward(HttpExchange exchange, String method, byte[] requestBody) throws IOException {
+        CompletableFuture<Fetched> fetch;
+        try {
+            fetch = client.sendAsync(buildUpstreamRequest(exchange, requestBody), HttpResponse.BodyHandlers.ofByteArray())
+                    .thenApply(RecordingProxy::fetched);
+        } catch (RuntimeException ex) {
+            respondBadGateway(exchange, ex);
+            return;
+        }
+        Fetched fetched = awaitFetch(exchange, fetch);
+        if (fetched != null) {
+            send(exchange, method, fetched.statusCode(), fetched.mediaType(), fetched.body(), "bypass");
+        }
+    }
+
+    // Answers 502 and returns null when the upstream request failed or did not finish in time.
+    private Fetched awaitFetch(HttpExchange exchange, CompletableFuture<Fetched> fetch) throws IOException {
+        try {
+            return fetch.get(config.timeout().toMillis() * 2, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException ex) {
+            Throwable cause = ex instanceof ExecutionException ? ex.getCause() : ex;
+            respondBadGateway(exchange, cause);
+            return null;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            respondBadGateway(exchange, ex);
+            return null;
+        }
+    }
+
+    private void startFetch(String key,
+                            String operationId,
+                            HttpExchange exchange,
+                            byte[] requestBody,
+                            CompletableFuture<Fetched> fetch) {
+        HttpRequest request;
+        try {
+            request = buildUpstreamRequest(exchange, requestBody);
+        } catch (RuntimeException ex) {
+            inFlight.remove(key, fetch);
+            fetch.completeExceptionally(ex);
+            return;
+        }
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((response, failure) -> {
+                    if (failure != null) {
+                        inFlight.remove(key, fetch);
+                        fetch.completeExceptionally(failure);
+                        return;
+                    }
+                    Fetched fetched = fetched(response);
+                    try {
+                        // Errors such as 401, 404 or 429 are passed through but never replayed.
+                        if (fetched.statusCode() >= 200 && fetched.statusCode() < 300) {
+                            record(key, operationId, fetched);
+                        }
+                    } catch (IOException | RuntimeException ex) {
+                        System.err.printf(Locale.ROOT, "Failed to record upstream response for %s: %s%n", key, ex.getMessage());
+                    } finally {
+                        inFlight.remove(key, fetch);
+                        fetch.complete(fetched);
+                    }
+                });
+    }
+
+    private static Fetched fetched(HttpResponse<byte[]> response) {
+        return new Fetched(response.statusCode(),
+                response.headers().firstValue("Content-Type").orElse(null),
+                response.body() == null ? new byte[0] : response.body());
+    }
+
+    private HttpRequest buildUpstreamRequest(HttpExchange exchange, byte[] requestBody) {
+        URI requestUri = exchange.getRequestURI();
+        String target = upstreamBase + requestUri.getRawPath()
+                + (requestUri.getRawQuery() == null ? "" : "?" + requestUri.getRawQuery());
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(target))
+                .timeout(config.timeout())
+                .method(exchange.getRequestMethod(), requestBody.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(requestBody));
+        for (Map.Entry<String, List<String>> header : exchange.getRequestHeaders().entrySet()) {
+            if (UNFORWARDED_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                builder.header(header.getKey(), value);
+            }
+        }
+        return builder.build();
+    }
+
+    private byte[] readRecorded(String key) throws IOException {
+        Recording recording = index.get(key);
+        if (recording == null) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(config.recordDir().resolve(recording.fileName()));
+        } catch (NoSuchFileException ex) {
+            return null;
+        }
+    }
+
+    private void record(String key, String operationId, Fetched fetched) throws IOException {
+        synchronized (fileOwners) {
+            String fileName = fileNameFor(key, operationId, fetched);
+            Path target = config.recordDir().resolve(fileName);
+            Path temp = config.recordDir().resolve(fileName + ".tmp");
+            Files.write(temp, fetched.body());
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            Recording recording = new Recording(fetched.statusCode(), fetched.mediaType(), fileName);
+            ObjectNode line = jsonMapper.createObjectNode();
+            line.put("key", key);
+            line.put("status", recording.statusCode());
+            line.put("mediaType", recording.mediaType());
+            line.put("file", recording.fileName());
+            Files.writeString(indexFile, jsonMapper.writeValueAsString(line) + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            fileOwners.put(fileName, key);
+            index.put(key, recording);
+        }
+    }
+
+    private String fileNameFor(String key, String operationId, Fetched fetched) {
+        String extension = fetched.mediaType() == null || fetched.mediaType().contains("json") ? ".json" : ".txt";
+        String baseName = operationId + "-" + fetched.statusCode();
+        String fileName = baseName + extension;
+        if (claimable(fileName, key)) {
+            return fileName;
+        }
+        // Other paths or queries of the same operation get their own file next to the operation's default one.
+        CRC32 crc = new CRC32();
+        crc.update(key.getBytes(StandardCharsets.UTF_8));
+        String hashed = baseName + "-" + String.format(Locale.ROOT, "%08x", crc.getValue());
+        fileName = hashed + extension;
+        for (int attempt = 2; !claimable(fileName, key); attempt++) {
+            fileName = hashed + "-" + attempt + extension;
+        }
+        return fileName;
+    }
+
+    private boolean claimable(String fileName, String key) {
+        String owner = fileOwners.get(fileName);
+        return owner == null || owner.equals(key);
+    }
+
+    private void loadIndex() throws IOException {
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+        for (String line : Files.readAllLines(indexFile, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode entry;
+            try {
+                entry = jsonMapper.readTree(line);
+            } catch (IOException ex) {
+                System.err.printf(Locale.ROOT, "Ignoring malformed proxy index line in %s%n", indexFile);
+                continue;
+            }
+            String key = entry.path("key").asText();
+            String mediaType = entry.path("mediaType").isTextual() ? entry.path("mediaType").asText() : null;
+            Recording recording = new Recording(entry.path("status").asInt(), mediaType, entry.path("file").asText());
+            if (recording.statusCode() < 200 || recording.statusCode() >= 300) {
+                // Indexes written by older versions may still list error responses; those are fetched again.
+                continue;
+            }
+            Recording previous = index.put(key, recording);
+            if (previous != null) {
+                fileOwners.remove(previous.fileName(), key);
+            }
+            fileOwners.put(recording.fileName(), key);
+        }
+        System.out.printf(Locale.ROOT, "Loaded %d recorded upstream responses from %s%n", index.size(), indexFile);
+    }
+
+    private static String fallbackOperationId(String method, String path) {
+        String sanitized = path.replaceAll("[^0-9A-Za-z]+", "_").replaceAll("^_+|_+$", "");
+        return method + (sanitized.isEmpty() ? "" : "_" + sanitized);
+    }
+
+    private static void send(HttpExchange exchange,
+                             String method,
+                             int statusCode,
+                             String mediaType,
+                             byte[] body,
+                             String source) throws IOException {
+        if (mediaType != null) {
+            exchange.getResponseHeaders().set("Content-Type", mediaType);
+        }
+        exchange.getResponseHeaders().set("X-Mock-Proxy", source);
+        if ("HEAD".equals(method) || body.length == 0 || statusCode == 204 || statusCode == 304) {
+            exchange.sendResponseHeaders(statusCode, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(statusCode, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static void respondBadGateway(HttpExchange exchange, Throwable cause) throws IOException {
+        byte[] body = ("Upstream request failed: " + cause).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain");
+        exchange.sendResponseHeaders(502, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private record Recording(int statusCode, String mediaType, String fileName) {
+    }
+
+    private record Fetched(int statusCode, String mediaType, byte[] body) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.liongardmock;
+
+public record ResponseOverride(
+        int statusCode,
+        String mediaType,
+        byte[] body
+) {
+    public static final int MIN_STATUS = 100;
+    public static final int MAX_STATUS = 599;
+
+    public ResponseOverride {
+        if (statusCode < MIN_STATUS || statusCode > MAX_STATUS) {
+            throw new IllegalArgumentException("status must be between " + MIN_STATUS + " and " + MAX_STATUS + ": " + statusCode);
+        }
+        body = body == null ? new byte[0] : body;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.liongardmock;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+public final class ResponsePlan {
+    private final Producer root;
+
+    ResponsePlan(Producer root) {
+        this.root = root;
+    }
+
+    public void write(JsonGenerator generator, long seed, long requestNumber) throws IOException {
+        write(generator, seed, requestNumber, Map.of());
+    }
+
+    public void write(JsonGenerator generator, long seed, long requestNumber, Map<String, String> pathParams)
+            throws IOException {
+        write(generator, randomFor(seed, requestNumber), pathParams);
+    }
+
+    public void write(JsonGenerator generator, SplittableRandom random, Map<String, String> pathParams)
+            throws IOException {
+        root.write(generator, random, pathParams);
+    }
+
+    static SplittableRandom randomFor(long seed, long requestNumber) {
+        return new SplittableRandom(mix(seed ^ mix(requestNumber)));
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+
+    interface Producer {
+        void write(JsonGenerator generator, SplittableRandom random, Map<String, String> pathParams) throws IOException;
+    }
+}
@@ -0,0 +1,514 @@
+package com.example.liongardmock;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public final class ResponsePlanCompiler {
+    private static final String SLASH_TIMESTAMP_PATTERN = "^[0-9]{4}/[0-9]{2}/[0-9]{2} [0-9]{2}:[0-9]{2}:[0-9]{2}$";
+    private static final long EARLIEST_EPOCH_MILLI = 1_546_300_800_000L;
+    private static final long LATEST_EPOCH_MILLI = 1_735_689_600_000L;
+    private static final long DEFAULT_INTEGER_SPAN = 100_000L;
+    private static final int DEFAULT_MAX_ITEMS = 3;
+    private static final int DEFAULT_MIN_LENGTH = 6;
+    private static final int DEFAULT_MAX_LENGTH = 12;
+    private static final int EXAMPLE_SUFFIX_LENGTH = 6;
+    private static final char[] ALPHANUMERIC = "abcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+    private static final Pattern ISO_DATE_TIME_EXAMPLE =
+            Pattern.compile("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}(\\.\\d+)?Z");
+    private static final Pattern SLASH_DATE_TIME_EXAMPLE = Pattern.compile("\\d{4}/\\d{2}/\\d{2} \\d{2}:\\d{2}:\\d{2}");
+    private static final Pattern PATH_PARAMETER = Pattern.compile("\\{([^}]+)}");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final JsonNode specRoot;
+    private final ObjectMapper jsonMapper;
+
+    public ResponsePlanCompiler(JsonNode specRoot) {
+        this.specRoot = specRoot;
+        this.jsonMapper = new ObjectMapper();
+    }
+
+    public ResponsePlan compile(JsonNode schema) {
+        return compile(schema, "");
+    }
+
+    // Properties named after a path parameter echo the request's value, as {{Param}} placeholders do in files. The
+    // root object's ID echoes the parameter that ends the path when it names the resource, e.g. /environments/{EnvironmentID}.
+    public ResponsePlan compile(JsonNode schema, String pathTemplate) {
+        ResponsePlan.Producer root = compileNode(schema, new HashSet<>());
+        Set<String> pathParameters = new HashSet<>();
+        String lastParameter = null;
+        Matcher matcher = PATH_PARAMETER.matcher(pathTemplate);
+        while (matcher.find()) {
+            lastParameter = matcher.group(1);
+            pathParameters.add(lastParameter);
+        }
+        if (!pathParameters.isEmpty()) {
+            String rootId = lastParameter.endsWith("ID") && pathTemplate.endsWith("{" + lastParameter + "}")
+                    ? lastParameter
+                    : null;
+            root = bindPathParameters(root, pathParameters, rootId);
+        }
+        return new ResponsePlan(root);
+    }
+
+    private static ResponsePlan.Producer bindPathParameters(ResponsePlan.Producer producer,
+                                                            Set<String> pathParameters,
+                                                            String rootId) {
+        if (producer instanceof ObjectProducer object) {
+            ResponsePlan.Producer[] values = new ResponsePlan.Producer[object.values.length];
+            for (int i = 0; i < values.length; i++) {
+                String name = object.names[i].getValue();
+                String parameter = pathParameters.contains(name) ? name : "ID".equals(name) ? rootId : null;
+                ResponsePlan.Producer value = object.values[i];
+                values[i] = parameter != null && (value instanceof IntegerProducer || value instanceof StringProducer)
+                        ? new PathParameterProducer(parameter, value)
+                        : bindPathParameters(value, pathParameters, null);
+            }
+            return new ObjectProducer(object.names, values);
+        }
+        if (producer instanceof ArrayProducer array) {
+            return new ArrayProducer(array.minItems(), array.maxItems(),
+                    bindPathParameters(array.items(), pathParameters, rootId));
+        }
+        if (producer instanceof ChoiceProducer choice) {
+            ResponsePlan.Producer[] choices = new ResponsePlan.Producer[choice.choices().length];
+            for (int i = 0; i < choices.length; i++) {
+                choices[i] = bindPathParameters(choice.choices()[i], pathParameters, rootId);
+            }
+            return new ChoiceProducer(choices);
+        }
+        return producer;
+    }
+
+    private ResponsePlan.Producer compileNode(JsonNode schema, Set<String> refStack) {
+        if (schema == null || schema.isMissingNode() || schema.isNull()) {
+            return NullProducer.INSTANCE;
+        }
+
+        if (schema.has("$ref")) {
+            String ref = schema.get("$ref").asText();
+            if (refStack.contains(ref)) {
+                return NullProducer.INSTANCE;
+            }
+            refStack.add(ref);
+            ResponsePlan.Producer result = compileNode(resolveRef(ref), refStack);
+            refStack.remove(ref);
+            return result;
+        }
+
+        JsonNode enumNode = schema.get("enum");
+        if (enumNode != null && enumNode.isArray() && enumNode.size() > 0) {
+            List<JsonNode> values = new ArrayList<>();
+            enumNode.forEach(values::add);
+            return new EnumProducer(values.toArray(JsonNode[]::new));
+        }
+
+        if (schema.has("allOf")) {
+            ObjectProducer combined = compileAllOf(schema.get("allOf"), refStack);
+            if (combined.names.length > 0) {
+                return combined;
+            }
+        }
+
+        if (schema.has("oneOf") || schema.has("anyOf")) {
+            JsonNode alternatives = schema.has("oneOf") ? schema.get("oneOf") : schema.get("anyOf");
+            List<ResponsePlan.Producer> choices = new ArrayList<>();
+            for (JsonNode alternative : alternatives) {
+                choices.add(compileNode(alternative, refStack));
+            }
+            if (!choices.isEmpty()) {
+                return new ChoiceProducer(choices.toArray(ResponsePlan.Producer[]::new));
+            }
+        }
+
+        String type = schema.path("type").asText("");
+        if (type.isEmpty()) {
+            if (schema.has("properties")) {
+                type = "object";
+            } else if (schema.has("items")) {
+                type = "array";
+            }
+        }
+
+        return switch (type) {
+            case "object" -> compileObject(schema, refStack);
+            case "array" -> compileArray(schema, refStack);
+            case "integer" -> compileInteger(schema);
+            case "number" -> compileNumber(schema);
+            case "boolean" -> BooleanProducer.INSTANCE;
+            case "string" -> compileString(schema);
+            default -> compileConstant(schema);
+        };
+    }
+
+    private ObjectProducer compileAllOf(JsonNode parts, Set<String> refStack) {
+        Map<String, ResponsePlan.Producer> fields = new LinkedHashMap<>();
+        for (JsonNode part : parts) {
+            if (compileNode(part, refStack) instanceof ObjectProducer object) {
+                for (int i = 0; i < object.names.length; i++) {
+                    fields.put(object.names[i].getValue(), object.values[i]);
+                }
+            }
+        }
+        return ObjectProducer.of(fields);
+    }
+
+    private ResponsePlan.Producer compileObject(JsonNode schema, Set<String> refStack) {
+        Map<String, ResponsePlan.Producer> fields = new LinkedHashMap<>();
+        JsonNode properties = schema.get("properties");
+        if (properties != null && properties.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> iterator = properties.fields();
+            while (iterator.hasNext()) {
+                Map.Entry<String, JsonNode> field = iterator.next();
+                fields.put(field.getKey(), compileNode(field.getValue(), refStack));
+            }
+        }
+
+        JsonNode additionalProperties = schema.get("additionalProperties");
+        if (fields.isEmpty() && additionalProperties != null) {
+            ResponsePlan.Producer additional = additionalProperties.isBoolean()
+                    ? new StringProducer(DEFAULT_MIN_LENGTH, DEFAULT_MAX_LENGTH)
+                    : compileNode(additionalProperties, refStack);
+            fields.put("key", additional);
+        }
+        return ObjectProducer.of(fields);
+    }
+
+    private ResponsePlan.Producer compileArray(JsonNode schema, Set<String> refStack) {
+        JsonNode items = schema.get("items");
+        if (items == null || items.isMissingNode()) {
+            return new ArrayProducer(0, 0, NullProducer.INSTANCE);
+        }
+        int minItems = Math.max(0, schema.path("minItems").asInt(1));
+        int maxItems = Math.max(minItems, schema.path("maxItems").asInt(Math.max(minItems, DEFAULT_MAX_ITEMS)));
+        return new ArrayProducer(minItems, maxItems, compileNode(items, refStack));
+    }
+
+    private ResponsePlan.Producer compileInteger(JsonNode schema) {
+        long minimum = schema.has("minimum") ? schema.get("minimum").asLong() : 0L;
+        long maximum = schema.has("maximum") ? schema.get("maximum").asLong() : minimum + DEFAULT_INTEGER_SPAN;
+        return new IntegerProducer(minimum, Math.max(minimum, maximum));
+    }
+
+    private ResponsePlan.Producer compileNumber(JsonNode schema) {
+        double minimum = schema.has("minimum") ? schema.get("minimum").asDouble() : 0.0;
+        double maximum = schema.has("maximum") ? schema.get("maximum").asDouble() : minimum + DEFAULT_INTEGER_SPAN;
+        return new NumberProducer(minimum, Math.max(minimum, maximum));
+    }
+
+    private ResponsePlan.Producer compileString(JsonNode schema) {
+        ResponsePlan.Producer formatted = producerForFormat(schema.path("format").asText(""));
+        if (formatted != null) {
+            return formatted;
+        }
+
+        String pattern = schema.path("pattern").asText("");
+        if (SLASH_TIMESTAMP_PATTERN.equals(pattern)) {
+            return new TimestampProducer(TimestampFormat.SLASH_DATE_TIME);
+        }
+        if (!pattern.isEmpty()) {
+            return compileConstant(schema);
+        }
+
+        if (schema.has("minLength") || schema.has("maxLength")) {
+            int minLength = Math.max(0, schema.path("minLength").asInt(DEFAULT_MIN_LENGTH));
+            int maxLength = Math.max(minLength, schema.path("maxLength").asInt(Math.max(minLength, DEFAULT_MAX_LENGTH)));
+            return new StringProducer(minLength, maxLength);
+        }
+
+        JsonNode example = schema.get("example");
+        if (example != null && example.isTextual() && !example.asText().isBlank()) {
+            ResponsePlan.Producer inferred = producerForFormat(inferFormat(example.asText()));
+            if (inferred != null) {
+                return inferred;
+            }
+            // Only prose and names are safe to vary; anything else may be parsed by the client.
+            return isFreeText(example.asText())
+                    ? new StringProducer(example.asText() + "-", EXAMPLE_SUFFIX_LENGTH, EXAMPLE_SUFFIX_LENGTH, "")
+                    : new ConstantProducer(example, jsonMapper);
+        }
+        return new StringProducer(DEFAULT_MIN_LENGTH, DEFAULT_MAX_LENGTH);
+    }
+
+    private ResponsePlan.Producer producerForFormat(String format) {
+        return switch (format) {
+            case "date" -> new TimestampProducer(TimestampFormat.DATE);
+            case "date-time" -> new TimestampProducer(TimestampFormat.ISO_DATE_TIME);
+            case "slash-date-time" -> new TimestampProducer(TimestampFormat.SLASH_DATE_TIME);
+            case "uuid" -> UuidProducer.INSTANCE;
+            case "email" -> new StringProducer("user.", DEFAULT_MIN_LENGTH, DEFAULT_MIN_LENGTH, "@example.com");
+            case "uri", "url" -> new StringProducer("https://example.com/", DEFAULT_MIN_LENGTH, DEFAULT_MAX_LENGTH, "");
+            default -> null;
+        };
+    }
+
+    private String inferFormat(String example) {
+        if (ISO_DATE_TIME_EXAMPLE.matcher(example).matches()) {
+            return "date-time";
+        }
+        if (SLASH_DATE_TIME_EXAMPLE.matcher(example).matches()) {
+            return "slash-date-time";
+        }
+        if (example.startsWith("http://") || example.startsWith("https://")) {
+            return "uri";
+        }
+        if (example.indexOf('@') > 0 && example.indexOf(' ') < 0) {
+            return "email";
+        }
+        return "";
+    }
+
+    private static boolean isFreeText(String example) {
+        String trimmed = example.trim();
+        if (trimmed.startsWith("{") || trimmed.startsWith("[")) {
+            return false;
+        }
+        // Single tokens are enum values, identifiers, domains or version tags.
+        return WHITESPACE.matcher(trimmed).find();
+    }
+
+    private ResponsePlan.Producer compileConstant(JsonNode schema) {
+        for (String field : List.of("example", "default")) {
+            JsonNode value = schema.get(field);
+            if (value != null && !value.isNull()) {
+                return new ConstantProducer(value, jsonMapper);
+            }
+        }
+        return NullProducer.INSTANCE;
+    }
+
+    private JsonNode resolveRef(String ref) {
+        if (!ref.startsWith("#/")) {
+            throw new IllegalArgumentException("Unsupported $ref format: " + ref);
+        }
+        String[] parts = ref.substring(2).split("/");
+        JsonNode current = specRoot;
+        for (String part : parts) {
+            current = current.path(part);
+            if (current.isMissingNode()) {
+                throw new IllegalArgumentException("Could not resolve reference: " + ref);
+            }
+        }
+        return current;
+    }
+
+    private static final class NullProducer implements ResponsePlan.Producer {
+        private static final NullProducer INSTANCE = new NullProducer();
+
+        @Override
+        public void write(JsonGenerator generator, SplittableRandom random, Map<String, String> pathParams)
+                throws IOException {
+            generator.writeNull();
+        }
+    }
+
+    private static final class BooleanProducer implements ResponsePlan.Producer {
+        private static final BooleanProducer INSTANCE = new BooleanProducer();
+
+        @Override
+        public void write(JsonGenerator generator, SplittableRandom random, Map<String, String> pathParams)
+                throws IOException {
+            generator.writeBoolean(random.nextBoolean());
+        }
+    }
+
+    private record IntegerProducer(long minimum, long maximum) implements ResponsePlan.Producer {
+        @Override
+        public void write(JsonGenerator generator, SplittableRandom random, Map<String, String> pathParams)
+                throws IOException {
+            long value = maximum == Long.MAX_VALUE ? random.nextLong(minimum, maximum) : random.nextLong(minimum, maximum + 1);
+            generator.writeNumber(value);
+        }
+    }
+
+    private record NumberProducer(double minimum, double maximum) implements ResponsePlan.Producer {
+        @Override
+        public void write(JsonGenerator generator, SplittableRandom random, Map<String, String> pathParams)
+                throws IOException {
+            double value = minimum == maximum ? minimum : random.nextDouble(minimum, maximum);
+            double rounded = Math.round(value * 100.0) / 100.0;
+            generator.writeNumber(Math.min(maximum, Math.max(minimum, rounded)));
+        }
+    }
+
+    private record EnumProducer(JsonNode[] values) implements ResponsePlan.Producer {
+        @Override
+        public void write(JsonGenerator generator, SplittableRandom random, Map<String, String> pathParams)
+                throws IOException {
+            JsonNode value = values[random.nextInt(values.length)];
+            if (value.isTextual()) {
+                generator.writeString(value.textValue());
+            } else if (value.isIntegralNumber()) {
+                generator.writeNumber(value.longValue());
+            } else if (value.isNumber()) {
+                generator.writeNumber(value.doubleValue());
+            } else if (value.isBoolean()) {
+                generator.writeBoolean(value.booleanValue());
+            } else {
+                generator.writeNull();
+            }
+        }
+    }
+
+    private record ConstantProducer(JsonNode value, ObjectMapper mapper) implements ResponsePlan.Producer {
+        @Override
+        public void write(JsonGenerator generator, SplittableRandom random, Map<String, String> pathParams)
+                throws IOException {
+            mapper.writeTree(generator, value);
+        }
+    }
+
+    private record ChoiceProducer(ResponsePlan.Producer[] choices) implements ResponsePlan.Producer {
+        @Override
+        public void write(JsonGenerator generator, SplittableRandom random, Map<String, String> pathParams)
+                throws IOException {
+            choices[random.nextInt(choices.length)].write(generator, random, pathParams);
+        }
+    }
+
+    private record ArrayProducer(int minItems, int maxItems, ResponsePlan.Producer items) implements ResponsePlan.Producer {
+        @Override
+        public void write(JsonGenerator generator, SplittableRandom random, Map<String, String> pathParams)
+                throws IOException {
+            int size = minItems == maxItems ? minItems : random.nextInt(minItems, maxItems + 1);
+            generator.writeStartArray(null, size);
+            for (int i = 0; i < size; i++) {
+                items.write(generator, random, pathParams);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private static final class ObjectProducer implements ResponsePlan.Producer {
+        private final SerializedString[] names;
+        private final ResponsePlan.Producer[] values;
+
+        private ObjectProducer(SerializedString[] names, ResponsePlan.Producer[] values) {
+            this.names = names;
+            this.values = values;
+        }
+
+        private static ObjectProducer of(Map<String, ResponsePlan.Producer> fields) {
+            SerializedString[] names = new SerializedString[fields.size()];
+            ResponsePlan.Producer[] values = new ResponsePlan.Producer[fields.size()];
+            int index = 0;
+            for (Map.Entry<String, ResponsePlan.Producer> field : fields.entrySet()) {
+                names[index] = new SerializedString(field.getKey());
+                values[index] = field.getValue();
+                index++;
+            }
+            return new ObjectProducer(names, values);
+        }
+
+        @Override
+        public void write(JsonGenerator generator, SplittableRandom random, Map<String, String> pathParams)
+                throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < names.length; i++) {
+                generator.writeFieldName(names[i]);
+                values[i].write(generator, random, pathParams);
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private record StringProducer(String prefix, int minLength, int maxLength, String suffix)
+            implements ResponsePlan.Producer {
+        private StringProducer(int minLength, int maxLength) {
+            this("", minLength, maxLength, "");
+        }
+
+        @Override
+        public void write(JsonGenerator generator, SplittableRandom random, Map<String, String> pathParams)
+                throws IOException {
+            int length = minLength == maxLength ? minLength : random.nextInt(minLength, maxLength + 1);
+            char[] buffer = new char[prefix.length() + length + suffix.length()];
+            prefix.getChars(0, prefix.length(), buffer, 0);
+            for (int i = 0; i < length; i++) {
+                buffer[prefix.length() + i] = ALPHANUMERIC[random.nextInt(ALPHANUMERIC.length)];
+            }
+            suffix.getChars(0, suffix.length(), buffer, prefix.length() + length);
+            generator.writeString(buffer, 0, buffer.length);
+        }
+    }
+
+    private record PathParameterProducer(String parameter, ResponsePlan.Producer fallback)
+            implements ResponsePlan.Producer {
+        @Override
+        public void write(JsonGenerator generator, SplittableRandom random, Map<String, String> pathParams)
+                throws IOException {
+            String value = pathParams.get(parameter);
+            if (value == null) {
+                fallback.write(generator, random, pathParams);
+            } else if (fallback instanceof IntegerProducer && isInteger(value)) {
+                generator.writeNumber(Long.parseLong(value));
+            } else {
+                generator.writeString(value);
+            }
+        }
+
+        private static boolean isInteger(String value) {
+            try {
+                Long.parseLong(value);
+                return true;
+            } catch (NumberFormatException ex) {
+                return false;
+            }
+        }
+    }
+
+    private static final class UuidProducer implements ResponsePlan.Producer {
+        private static final UuidProducer INSTANCE = new UuidProducer();
+
+        @Override
+        public void write(JsonGenerator generator, SplittableRandom random, Map<String, String> pathParams)
+                throws IOException {
+            char[] buffer = new char[36];
+            long high = (random.nextLong() & ~0xF000L) | 0x4000L;
+            long low = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+            writeHex(buffer, 0, high >>> 32, 8);
+            buffer[8] = '-';
+            writeHex(buffer, 9, high >>> 16, 4);
+            buffer[13] = '-';
+            writeHex(buffer, 14, high, 4);
+            buffer[18] = '-';
+            writeHex(buffer, 19, low >>> 48, 4);
+            buffer[23] = '-';
+            writeHex(buffer, 24, low, 12);
+            generator.writeString(buffer, 0, buffer.length);
+        }
+
+        private static void writeHex(char[] buffer, int offset, long value, int digits) {
+            for (int i = digits - 1; i >= 0; i--) {
+                buffer[offset + i] = HEX[(int) (value & 0xF)];
+                value >>>= 4;
+            }
+        }
+    }
+
+    private record TimestampProducer(int style) implements ResponsePlan.Producer {
+        @Override
+        public void write(JsonGenerator generator, SplittableRandom random, Map<String, String> pathParams)
+                throws IOException {
+            long epochMillis = random.nextLong(EARLIEST_EPOCH_MILLI, LATEST_EPOCH_MILLI);
+            char[] buffer = new char[TimestampFormat.MAX_LENGTH];
+            int length = TimestampFormat.format(buffer, epochMillis, style);
+            generator.writeString(buffer, 0, length);
+        }
+    }
+}
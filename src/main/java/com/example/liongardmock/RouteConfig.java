@@ -1,9 +1,9 @@
 package com.example.liongardmock;
 
-import java.nio.file.Path;
 import java.util.List;
 
 public record RouteConfig(
+        String operationId,
         String httpMethod,
         String pathTemplate,
         List<String> pathParameters,
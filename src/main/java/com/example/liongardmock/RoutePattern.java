@@ -0,0 +1,64 @@
+package com.example.liongardmock;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+record RoutePattern(Pattern pattern, Map<String, String> parameterGroupNames) {
+    static RoutePattern compile(RouteConfig config) {
+        Map<String, String> groupNames = buildGroupNames(config.pathParameters());
+        return new RoutePattern(Pattern.compile(toRegex(config.pathTemplate(), groupNames)), Map.copyOf(groupNames));
+    }
+
+    private static Map<String, String> buildGroupNames(List<String> parameters) {
+        Map<String, String> result = new HashMap<>();
+        for (String parameter : parameters) {
+            String sanitized = sanitizeGroupName(parameter);
+            result.put(parameter, sanitized);
+        }
+        return result;
+    }
+
+    private static String toRegex(String template, Map<String, String> groupNames) {
+        StringBuilder regex = new StringBuilder("^");
+        int index = 0;
+        while (index < template.length()) {
+            char ch = template.charAt(index);
+            if (ch == '{') {
+                int end = template.indexOf('}', index);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unmatched '{' in path template: " + template);
+                }
+                String originalName = template.substring(index + 1, end);
+                String groupName = groupNames.getOrDefault(originalName, sanitizeGroupName(originalName));
+                regex.append("(?<").append(groupName).append(">[^/]+)");
+                index = end + 1;
+            } else {
+                if (".[]{}()*+-?^$|".indexOf(ch) >= 0) {
+                    regex.append('\\');
+                }
+                regex.append(ch);
+                index++;
+            }
+        }
+        regex.append("$");
+        return regex.toString();
+    }
+
+    private static String sanitizeGroupName(String name) {
+        StringBuilder sanitized = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char ch = name.charAt(i);
+            if (Character.isLetterOrDigit(ch)) {
+                sanitized.append(ch);
+            } else {
+                sanitized.append('_');
+            }
+        }
+        if (sanitized.length() == 0 || !Character.isLetter(sanitized.charAt(0))) {
+            sanitized.insert(0, 'p');
+        }
+        return sanitized.toString();
+    }
+}
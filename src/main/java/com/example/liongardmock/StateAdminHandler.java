@@ -0,0 +1,151 @@
+package com.example.liongardmock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+final class StateAdminHandler implements HttpHandler {
+    static final String CONTEXT_PATH = "/_mock/responses";
+
+    private final MockStateStore state;
+    private final Map<String, RouteConfig> routesByOperation;
+    private final ObjectMapper jsonMapper;
+
+    StateAdminHandler(MockStateStore state, Map<String, RouteConfig> routesByOperation) {
+        this.state = state;
+        this.routesByOperation = routesByOperation;
+        this.jsonMapper = new ObjectMapper();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream requestBody = exchange.getRequestBody()) {
+            try {
+                handle(exchange, requestBody);
+            } catch (Exception ex) {
+                respondText(exchange, 500, "Mock server internal error: " + ex.getMessage());
+            }
+        }
+    }
+
+    private void handle(HttpExchange exchange, InputStream requestBody) throws IOException {
+        String method = exchange.getRequestMethod().toUpperCase(Locale.ROOT);
+        String operationId = exchange.getRequestURI().getPath().substring(CONTEXT_PATH.length()).replaceAll("^/+|/+$", "");
+        if (operationId.isEmpty()) {
+            requestBody.transferTo(OutputStream.nullOutputStream());
+            if ("GET".equals(method)) {
+                respondWithOverrides(exchange);
+            } else {
+                respondMethodNotAllowed(exchange, "GET");
+            }
+            return;
+        }
+
+        RouteConfig route = routesByOperation.get(operationId);
+        if (route == null) {
+            requestBody.transferTo(OutputStream.nullOutputStream());
+            respondText(exchange, 404, "No mock route with operationId " + operationId);
+            return;
+        }
+
+        switch (method) {
+            case "GET" -> respondWithOverride(exchange, operationId);
+            case "PUT" -> {
+                Integer statusCode = parseStatus(exchange, route);
+                if (statusCode == null) {
+                    requestBody.transferTo(OutputStream.nullOutputStream());
+                    respondText(exchange, 400, "status must be an integer between "
+                            + ResponseOverride.MIN_STATUS + " and " + ResponseOverride.MAX_STATUS);
+                    return;
+                }
+                String mediaType = exchange.getRequestHeaders().getFirst("Content-Type");
+                byte[] body = requestBody.readAllBytes();
+                state.putOverride(operationId, new ResponseOverride(statusCode,
+                        mediaType == null ? route.responseConfig().mediaType() : mediaType, body));
+                exchange.sendResponseHeaders(204, -1);
+            }
+            case "DELETE" -> {
+                state.removeOverride(operationId);
+                exchange.sendResponseHeaders(204, -1);
+            }
+            default -> {
+                requestBody.transferTo(OutputStream.nullOutputStream());
+                respondMethodNotAllowed(exchange, "GET, PUT, DELETE");
+            }
+        }
+    }
+
+    private void respondWithOverrides(HttpExchange exchange) throws IOException {
+        ObjectNode result = jsonMapper.createObjectNode();
+        for (Map.Entry<String, ResponseOverride> entry : new TreeMap<>(state.overrides()).entrySet()) {
+            ObjectNode summary = result.putObject(entry.getKey());
+            summary.put("status", entry.getValue().statusCode());
+            summary.put("mediaType", entry.getValue().mediaType());
+            summary.put("bytes", entry.getValue().body().length);
+        }
+        byte[] body = jsonMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(result);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private void respondWithOverride(HttpExchange exchange, String operationId) throws IOException {
+        ResponseOverride override = state.override(operationId);
+        if (override == null) {
+            respondText(exchange, 404, "No override stored for " + operationId);
+            return;
+        }
+        if (override.mediaType() != null) {
+            exchange.getResponseHeaders().set("Content-Type", override.mediaType());
+        }
+        exchange.getResponseHeaders().set("X-Mock-Status", String.valueOf(override.statusCode()));
+        exchange.sendResponseHeaders(200, override.body().length == 0 ? -1 : override.body().length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(override.body());
+        }
+    }
+
+    // Returns null for a status the mock could not serve, so the caller can answer 400 before anything is stored.
+    private Integer parseStatus(HttpExchange exchange, RouteConfig route) {
+        String query = exchange.getRequestURI().getQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                if (pair.startsWith("status=")) {
+                    try {
+                        int statusCode = Integer.parseInt(pair.substring("status=".length()));
+                        return statusCode >= ResponseOverride.MIN_STATUS && statusCode <= ResponseOverride.MAX_STATUS
+                                ? statusCode
+                                : null;
+                    } catch (NumberFormatException ex) {
+                        return null;
+                    }
+                }
+            }
+        }
+        return route.responseConfig().statusCode();
+    }
+
+    private void respondMethodNotAllowed(HttpExchange exchange, String allowed) throws IOException {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        exchange.sendResponseHeaders(405, -1);
+    }
+
+    private void respondText(HttpExchange exchange, int statusCode, String message) throws IOException {
+        byte[] body = message.getBytes();
+        exchange.getResponseHeaders().set("Content-Type", "text/plain");
+        exchange.sendResponseHeaders(statusCode, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.example.liongardmock;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Appends are framed as [length][crc32][record] and made durable in groups: the writer thread drains every
+// pending append, writes the batch with one gathering write and forces the channel once for all of them.
+final class StateJournal implements Closeable {
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int MAX_BATCH = 4096;
+    private static final int FRAME_HEADER_BYTES = 8;
+    private static final int MAX_FRAME_BYTES = 64 << 20;
+    private static final long CLOSE_TIMEOUT_MILLIS = 10_000;
+
+    private final Path directory;
+    private final BlockingQueue<PendingAppend> pending = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private FileChannel channel;
+    private boolean closed;
+    private volatile IOException failure;
+
+    StateJournal(Path directory, long firstSequence) throws IOException {
+        this.directory = directory;
+        this.channel = openSegment(firstSequence);
+        this.writer = new Thread(this::writeLoop, "state-journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    CompletableFuture<Void> append(StateRecord record) {
+        return enqueue(Kind.APPEND, record.sequence(), frame(record));
+    }
+
+    CompletableFuture<Void> roll(long nextSequence) {
+        return enqueue(Kind.ROLL, nextSequence, null);
+    }
+
+    void deleteSegmentsBefore(long sequence) throws IOException {
+        for (Path segment : listSegments(directory)) {
+            if (segmentStart(segment) < sequence) {
+                Files.deleteIfExists(segment);
+            }
+        }
+    }
+
+    static long replay(Path directory, long afterSequence, Consumer<StateRecord> consumer) throws IOException {
+        long lastSequence = afterSequence;
+        for (Path segment : listSegments(directory)) {
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(segment), 1 << 16))) {
+                StateRecord record;
+                while ((record = readFrame(in, segment)) != null) {
+                    if (record.sequence() > lastSequence) {
+                        consumer.accept(record);
+                        lastSequence = record.sequence();
+                    }
+                }
+            }
+        }
+        return lastSequence;
+    }
+
+    @Override
+    public void close() throws IOException {
+        CompletableFuture<Void> closing;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closing = enqueue(Kind.CLOSE, -1, null);
+        }
+        await(closing, CLOSE_TIMEOUT_MILLIS);
+        try {
+            writer.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static void await(CompletableFuture<Void> durable, long timeoutMillis) throws IOException {
+        try {
+            durable.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("State journal write failed", ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new IOException("Timed out waiting for the state journal", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the state journal", ex);
+        }
+    }
+
+    // Nothing is queued behind CLOSE, so every accepted future is completed by the writer thread.
+    private synchronized CompletableFuture<Void> enqueue(Kind kind, long sequence, byte[] frame) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IOException("State journal is closed"));
+        }
+        IOException failed = failure;
+        if (failed != null && kind == Kind.APPEND) {
+            return CompletableFuture.failedFuture(new IOException("State journal is unusable after an earlier write failure", failed));
+        }
+        if (kind == Kind.CLOSE) {
+            closed = true;
+        }
+        PendingAppend append = new PendingAppend(kind, sequence, frame, new CompletableFuture<>());
+        pending.add(append);
+        return append.durable();
+    }
+
+    private void writeLoop() {
+        List<PendingAppend> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException ex) {
+                continue;
+            }
+            pending.drainTo(batch, MAX_BATCH - 1);
+            running = writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private boolean writeBatch(List<PendingAppend> batch) {
+        List<PendingAppend> unsynced = new ArrayList<>();
+        for (PendingAppend append : batch) {
+            switch (append.kind()) {
+                case APPEND -> {
+                    IOException failed = failure;
+                    if (failed != null) {
+                        append.durable().completeExceptionally(failed);
+                    } else {
+                        unsynced.add(append);
+                    }
+                }
+                case ROLL -> {
+                    syncAndComplete(unsynced);
+                    rollSegment(append);
+                }
+                case CLOSE -> {
+                    syncAndComplete(unsynced);
+                    closeQuietly(channel);
+                    append.durable().complete(null);
+                    return false;
+                }
+            }
+        }
+        syncAndComplete(unsynced);
+        return true;
+    }
+
+    private void syncAndComplete(List<PendingAppend> appends) {
+        if (appends.isEmpty()) {
+            return;
+        }
+        ByteBuffer[] buffers = new ByteBuffer[appends.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.wrap(appends.get(i).frame());
+        }
+        long goodPosition = -1;
+        try {
+            goodPosition = channel.position();
+            while (buffers[buffers.length - 1].hasRemaining()) {
+                channel.write(buffers);
+            }
+            channel.force(false);
+            for (PendingAppend append : appends) {
+                append.durable().complete(null);
+            }
+        } catch (IOException ex) {
+            fail(ex, goodPosition);
+            for (PendingAppend append : appends) {
+                append.durable().completeExceptionally(ex);
+            }
+        } finally {
+            appends.clear();
+        }
+    }
+
+    private void rollSegment(PendingAppend roll) {
+        if (failure != null) {
+            roll.durable().completeExceptionally(failure);
+            return;
+        }
+        // The new segment is opened before the old one is closed, so a failed roll leaves the journal writable.
+        try {
+            FileChannel next = openSegment(roll.sequence());
+            FileChannel previous = channel;
+            channel = next;
+            closeQuietly(previous);
+            roll.durable().complete(null);
+        } catch (IOException ex) {
+            roll.durable().completeExceptionally(ex);
+        }
+    }
+
+    // A failed write may leave part of a frame behind; cut the segment back so later recovery does not stop early,
+    // then refuse further appends because acknowledged durability can no longer be promised.
+    private void fail(IOException cause, long goodPosition) {
+        failure = cause;
+        System.err.printf(Locale.ROOT, "State journal write failed, rejecting further changes: %s%n", cause.getMessage());
+        if (goodPosition >= 0) {
+            try {
+                channel.truncate(goodPosition);
+                channel.force(false);
+            } catch (IOException ignored) {
+                // Replay stops at the torn frame; nothing after it was acknowledged.
+            }
+        }
+        closeQuietly(channel);
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // The channel is being discarded.
+        }
+    }
+
+    private FileChannel openSegment(long firstSequence) throws IOException {
+        // Segments are only opened right after the last valid record, so anything already in the file is a torn tail.
+        Path segment = directory.resolve(String.format(Locale.ROOT, "%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        FileChannel segmentChannel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            forceDirectory(directory);
+        } catch (IOException ex) {
+            closeQuietly(segmentChannel);
+            throw ex;
+        }
+        return segmentChannel;
+    }
+
+    // A new or renamed file only survives a crash once its directory entry is durable as well.
+    static void forceDirectory(Path directory) throws IOException {
+        FileChannel directoryChannel;
+        try {
+            directoryChannel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException ex) {
+            // Some platforms cannot open directories; their file systems make renames durable on their own.
+            return;
+        }
+        try (directoryChannel) {
+            directoryChannel.force(true);
+        }
+    }
+
+    private static byte[] frame(StateRecord record) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(0L);
+            record.writeTo(out);
+            byte[] frame = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(frame, FRAME_HEADER_BYTES, frame.length - FRAME_HEADER_BYTES);
+            ByteBuffer.wrap(frame)
+                    .putInt(frame.length - FRAME_HEADER_BYTES)
+                    .putInt((int) crc.getValue());
+            return frame;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static StateRecord readFrame(DataInputStream in, Path segment) throws IOException {
+        try {
+            int length = in.readInt();
+            int expectedCrc = in.readInt();
+            if (length < 0 || length > MAX_FRAME_BYTES) {
+                System.err.printf(Locale.ROOT, "Ignoring corrupt journal tail in %s%n", segment);
+                return null;
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != expectedCrc) {
+                System.err.printf(Locale.ROOT, "Ignoring corrupt journal tail in %s%n", segment);
+                return null;
+            }
+            return StateRecord.readFrom(new DataInputStream(new ByteArrayInputStream(payload)));
+        } catch (EOFException ex) {
+            return null;
+        }
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX) && Files.isRegularFile(path);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long segmentStart(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private enum Kind {
+        APPEND, ROLL, CLOSE
+    }
+
+    private record PendingAppend(Kind kind, long sequence, byte[] frame, CompletableFuture<Void> durable) {
+    }
+}
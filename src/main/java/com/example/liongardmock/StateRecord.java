@@ -0,0 +1,45 @@
+package com.example.liongardmock;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+record StateRecord(long sequence, byte type, String operationId, ResponseOverride override) {
+    static final byte PUT_OVERRIDE = 1;
+    static final byte REMOVE_OVERRIDE = 2;
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(sequence);
+        out.writeByte(type);
+        out.writeUTF(operationId);
+        if (type == PUT_OVERRIDE) {
+            writeOverride(out, override);
+        }
+    }
+
+    static StateRecord readFrom(DataInput in) throws IOException {
+        long sequence = in.readLong();
+        byte type = in.readByte();
+        String operationId = in.readUTF();
+        return switch (type) {
+            case PUT_OVERRIDE -> new StateRecord(sequence, type, operationId, readOverride(in));
+            case REMOVE_OVERRIDE -> new StateRecord(sequence, type, operationId, null);
+            default -> throw new IOException("Unknown state record type " + type + " at sequence " + sequence);
+        };
+    }
+
+    static void writeOverride(DataOutput out, ResponseOverride override) throws IOException {
+        out.writeShort(override.statusCode());
+        out.writeUTF(override.mediaType() == null ? "" : override.mediaType());
+        out.writeInt(override.body().length);
+        out.write(override.body());
+    }
+
+    static ResponseOverride readOverride(DataInput in) throws IOException {
+        int statusCode = in.readUnsignedShort();
+        String mediaType = in.readUTF();
+        byte[] body = new byte[in.readInt()];
+        in.readFully(body);
+        return new ResponseOverride(statusCode, mediaType.isEmpty() ? null : mediaType, body);
+    }
+}
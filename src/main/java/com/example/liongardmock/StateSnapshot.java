@@ -0,0 +1,138 @@
+package com.example.liongardmock;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+final class StateSnapshot {
+    private static final String FILE_NAME = "snapshot.bin";
+    private static final int MAGIC = 0x4C475353;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int TRAILER_BYTES = Long.BYTES;
+
+    private final long lastSequence;
+    private final Map<String, ResponseOverride> overrides;
+
+    StateSnapshot(long lastSequence, Map<String, ResponseOverride> overrides) {
+        this.lastSequence = lastSequence;
+        this.overrides = overrides;
+    }
+
+    long lastSequence() {
+        return lastSequence;
+    }
+
+    Map<String, ResponseOverride> overrides() {
+        return overrides;
+    }
+
+    void write(Path directory) throws IOException {
+        Path target = directory.resolve(FILE_NAME);
+        Path temporary = directory.resolve(FILE_NAME + ".tmp");
+        List<String> mediaTypes = new ArrayList<>();
+        Map<String, Integer> mediaTypeIndexes = new HashMap<>();
+        for (ResponseOverride override : overrides.values()) {
+            String mediaType = override.mediaType() == null ? "" : override.mediaType();
+            mediaTypeIndexes.computeIfAbsent(mediaType, key -> {
+                mediaTypes.add(key);
+                return mediaTypes.size() - 1;
+            });
+        }
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CheckedOutputStream checked = new CheckedOutputStream(Channels.newOutputStream(channel), new CRC32());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(checked, BUFFER_SIZE));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lastSequence);
+            out.writeInt(overrides.size());
+            out.writeInt(mediaTypes.size());
+            for (String mediaType : mediaTypes) {
+                byte[] encoded = mediaType.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(encoded.length);
+                out.write(encoded);
+            }
+            for (Map.Entry<String, ResponseOverride> entry : overrides.entrySet()) {
+                ResponseOverride override = entry.getValue();
+                byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(key.length);
+                out.write(key);
+                out.writeShort(override.statusCode());
+                out.writeShort(mediaTypeIndexes.get(override.mediaType() == null ? "" : override.mediaType()));
+                out.writeInt(override.body().length);
+                out.write(override.body());
+            }
+            out.flush();
+            long checksum = checked.getChecksum().getValue();
+            out.writeLong(checksum);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        StateJournal.forceDirectory(directory);
+    }
+
+    // Snapshots are memory-mapped, checksummed in one pass and then decoded straight from the mapping.
+    static StateSnapshot read(Path directory) throws IOException {
+        Path source = directory.resolve(FILE_NAME);
+        if (!Files.exists(source)) {
+            return new StateSnapshot(0L, new ConcurrentHashMap<>());
+        }
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("State snapshot " + source + " is larger than 2 GB");
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < TRAILER_BYTES) {
+                throw new IOException("State snapshot " + source + " is truncated");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, buffer.limit() - TRAILER_BYTES));
+            if (buffer.getLong(buffer.limit() - TRAILER_BYTES) != crc.getValue()) {
+                throw new IOException("State snapshot " + source + " failed its checksum");
+            }
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Unrecognised state snapshot format in " + source);
+            }
+            long lastSequence = buffer.getLong();
+            int count = buffer.getInt();
+            String[] mediaTypes = new String[buffer.getInt()];
+            for (int i = 0; i < mediaTypes.length; i++) {
+                String mediaType = readString(buffer, Short.toUnsignedInt(buffer.getShort()));
+                mediaTypes[i] = mediaType.isEmpty() ? null : mediaType;
+            }
+            Map<String, ResponseOverride> overrides = new ConcurrentHashMap<>(Math.max(16, count));
+            for (int i = 0; i < count; i++) {
+                String key = readString(buffer, buffer.getInt());
+                int statusCode = Short.toUnsignedInt(buffer.getShort());
+                String mediaType = mediaTypes[Short.toUnsignedInt(buffer.getShort())];
+                byte[] body = new byte[buffer.getInt()];
+                buffer.get(body);
+                overrides.put(key, new ResponseOverride(statusCode, mediaType, body));
+            }
+            return new StateSnapshot(lastSequence, overrides);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.liongardmock;
+
+import java.time.LocalDate;
+
+final class TimestampFormat {
+    static final int DATE = 0;
+    static final int ISO_DATE_TIME = 1;
+    static final int SLASH_DATE_TIME = 2;
+    static final int MAX_LENGTH = 24;
+
+    private TimestampFormat() {
+    }
+
+    static int format(char[] buffer, long epochMillis, int style) {
+        long epochSecond = Math.floorDiv(epochMillis, 1000L);
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(epochSecond, 86_400L));
+        int secondOfDay = (int) Math.floorMod(epochSecond, 86_400L);
+        char dateSeparator = style == SLASH_DATE_TIME ? '/' : '-';
+        writeDigits(buffer, 0, date.getYear(), 4);
+        buffer[4] = dateSeparator;
+        writeDigits(buffer, 5, date.getMonthValue(), 2);
+        buffer[7] = dateSeparator;
+        writeDigits(buffer, 8, date.getDayOfMonth(), 2);
+        if (style == DATE) {
+            return 10;
+        }
+        buffer[10] = style == SLASH_DATE_TIME ? ' ' : 'T';
+        writeDigits(buffer, 11, secondOfDay / 3600, 2);
+        buffer[13] = ':';
+        writeDigits(buffer, 14, secondOfDay / 60 % 60, 2);
+        buffer[16] = ':';
+        writeDigits(buffer, 17, secondOfDay % 60, 2);
+        if (style == SLASH_DATE_TIME) {
+            return 19;
+        }
+        buffer[19] = '.';
+        writeDigits(buffer, 20, (int) Math.floorMod(epochMillis, 1000L), 3);
+        buffer[23] = 'Z';
+        return 24;
+    }
+
+    private static void writeDigits(char[] buffer, int offset, int value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            buffer[offset + i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
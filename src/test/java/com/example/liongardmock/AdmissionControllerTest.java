@@ -0,0 +1,106 @@
+package com.example.liongardmock;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControllerTest {
+    @TempDir
+    Path recordDir;
+
+    @Test
+    void routeAndGlobalLimitsShareOneDeadline() throws Exception {
+        AdmissionController admission = new AdmissionController(
+                new AdmissionConfig(1, 1, 1, Duration.ofMillis(300), false, 1));
+        ConcurrencyLimiter routeLimiter = admission.newRouteLimiter();
+        assertTrue(routeLimiter.tryAcquire(0));
+        AdmissionController.Permit held = admission.tryAdmit(null);
+        CompletableFuture.runAsync(() -> {
+            sleep(200);
+            routeLimiter.releaseWithoutSample();
+        });
+
+        long start = System.nanoTime();
+        // The route permit arrives after ~200 ms; the global wait only gets what is left of the 300 ms.
+        assertNull(admission.tryAdmit(routeLimiter));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMillis >= 250 && elapsedMillis < 450, "elapsed: " + elapsedMillis + " ms");
+        held.close();
+    }
+
+    @Test
+    void overloadedServerAnswers503WithRetryAfter() throws Exception {
+        CountDownLatch upstreamEntered = new CountDownLatch(1);
+        CountDownLatch releaseUpstream = new CountDownLatch(1);
+        HttpServer upstream = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        upstream.setExecutor(Executors.newCachedThreadPool());
+        upstream.createContext("/", exchange -> {
+            upstreamEntered.countDown();
+            try {
+                releaseUpstream.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        upstream.start();
+        URI upstreamUri = URI.create("http://127.0.0.1:" + upstream.getAddress().getPort());
+
+        HttpClient client = HttpClient.newHttpClient();
+        try (MockApiServer server = MockApiServer.builder()
+                .routes(List.of(new RouteConfig("Ping", "GET", "/ping", List.of(),
+                        new MockResponseConfig(204, null, null, false, null))))
+                .admission(new AdmissionConfig(1, 0, 0, Duration.ZERO, false, 7))
+                .proxy(new ProxyConfig(upstreamUri, Set.of(), recordDir, Duration.ofSeconds(10)))
+                .quiet(true)
+                .build()) {
+            server.start();
+            CompletableFuture<HttpResponse<String>> slow = client.sendAsync(
+                    HttpRequest.newBuilder(server.baseUri().resolve("/slow")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertTrue(upstreamEntered.await(5, TimeUnit.SECONDS));
+
+            HttpResponse<String> rejected = client.send(
+                    HttpRequest.newBuilder(server.baseUri().resolve("/ping")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(503, rejected.statusCode());
+            assertEquals("7", rejected.headers().firstValue("Retry-After").orElse(null));
+            releaseUpstream.countDown();
+            assertEquals(204, slow.get(5, TimeUnit.SECONDS).statusCode());
+        } finally {
+            releaseUpstream.countDown();
+            upstream.stop(0);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.liongardmock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimiterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void rejectsImmediatelyWithoutQueue() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 0, false);
+        assertTrue(limiter.tryAcquire(0));
+
+        long start = System.nanoTime();
+        assertFalse(limiter.tryAcquire(SECOND));
+        assertTrue(System.nanoTime() - start < SECOND / 2, "a full queue must not wait for the timeout");
+    }
+
+    @Test
+    void rejectsImmediatelyWhenQueueIsFull() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, false);
+        assertTrue(limiter.tryAcquire(0));
+        CompletableFuture<Boolean> queued = acquireAsync(limiter, 5 * SECOND);
+        awaitQueued(queued);
+
+        long start = System.nanoTime();
+        assertFalse(limiter.tryAcquire(SECOND));
+        assertTrue(System.nanoTime() - start < SECOND / 2, "a full queue must not wait for the timeout");
+
+        limiter.releaseWithoutSample();
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void queuedWaiterTimesOut() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, false);
+        assertTrue(limiter.tryAcquire(0));
+
+        long start = System.nanoTime();
+        assertFalse(limiter.tryAcquire(TimeUnit.MILLISECONDS.toNanos(100)));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    private static CompletableFuture<Boolean> acquireAsync(ConcurrencyLimiter limiter, long timeoutNanos) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.tryAcquire(timeoutNanos);
+            } catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+    }
+
+    private static void awaitQueued(CompletableFuture<Boolean> queued) throws InterruptedException {
+        // The waiter has no observable queued state; give it time to reach the condition wait.
+        Thread.sleep(200);
+        assertFalse(queued.isDone());
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.liongardmock;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventFeedTest {
+    private static final int CAPACITY = 16;
+    private static final long FIRST_TIMELINE_ID = 1_000_000L;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private MockApiServer server;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = MockApiServer.builder()
+                .routes(List.of(
+                        route("Timeline", "/timeline", List.of()),
+                        route("TimelineDetail", "/timeline/{TimelineID}/detail", List.of("TimelineID"))))
+                .eventFeed(new EventFeedConfig(100_000, CAPACITY))
+                .quiet(true)
+                .build();
+        server.start();
+        // At this rate the ring wraps many times within the first few milliseconds.
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (latestId() < FIRST_TIMELINE_ID + 4 * CAPACITY && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void sinceBehindTheWindowStartsAtOldestRetainedEntry() throws Exception {
+        JsonNode entries = getJson("/timeline?since=" + FIRST_TIMELINE_ID + "&limit=1000");
+
+        assertTrue(entries.size() > 0 && entries.size() <= CAPACITY, "entries: " + entries.size());
+        long firstId = entries.get(0).get("ID").asLong();
+        assertTrue(firstId > FIRST_TIMELINE_ID + 1, "first ID should be past the overwritten ones: " + firstId);
+        for (int i = 1; i < entries.size(); i++) {
+            assertEquals(firstId + i, entries.get(i).get("ID").asLong());
+        }
+    }
+
+    @Test
+    void detailOfOverwrittenEntryIsNotFound() throws Exception {
+        assertEquals(404, get("/timeline/" + FIRST_TIMELINE_ID + "/detail").statusCode());
+    }
+
+    @Test
+    void detailOfRetainedEntryEchoesItsId() throws Exception {
+        long id = latestId();
+
+        HttpResponse<String> response = get("/timeline/" + id + "/detail");
+
+        // The producer may lap the entry between the two requests; both answers are valid, an empty 200 is not.
+        if (response.statusCode() == 200) {
+            assertEquals(id, mapper.readTree(response.body()).get(0).get("TimelineID").asLong());
+        } else {
+            assertEquals(404, response.statusCode());
+        }
+    }
+
+    @Test
+    void malformedParametersAreRejected() throws Exception {
+        assertEquals(400, get("/timeline?since=abc").statusCode());
+        assertEquals(400, get("/timeline/abc/detail").statusCode());
+    }
+
+    private long latestId() throws IOException, InterruptedException {
+        JsonNode entries = getJson("/timeline?limit=1");
+        return entries.isEmpty() ? 0 : entries.get(0).get("ID").asLong();
+    }
+
+    private JsonNode getJson(String path) throws IOException, InterruptedException {
+        HttpResponse<String> response = get(path);
+        assertEquals(200, response.statusCode(), response.body());
+        return mapper.readTree(response.body());
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(server.baseUri().resolve(path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static RouteConfig route(String operationId, String pathTemplate, List<String> pathParameters) {
+        return new RouteConfig(operationId, "GET", pathTemplate, pathParameters,
+                new MockResponseConfig(200, "application/json", null, false, null));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.liongardmock;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EventRingTest {
+    @Test
+    void keepsOnlyTheLatestCapacityEntries() throws IOException {
+        EventRing ring = new EventRing(4);
+        for (long i = 0; i < 10; i++) {
+            ring.append(1_000 + i, i);
+        }
+
+        assertEquals(9, ring.head());
+        assertEquals(6, ring.oldest());
+        assertEquals(List.of(6L, 7L, 8L, 9L), readSequences(ring, 0, 100));
+    }
+
+    @Test
+    void readFromBehindTheWindowStartsAtOldest() throws IOException {
+        EventRing ring = new EventRing(8);
+        for (long i = 0; i < 20; i++) {
+            ring.append(i, i);
+        }
+
+        assertEquals(List.of(12L, 13L, 14L), readSequences(ring, 3, 3));
+    }
+
+    @Test
+    void skipsSlotsOverwrittenDuringRead() throws IOException {
+        EventRing ring = new EventRing(4);
+        for (long i = 0; i < 10; i++) {
+            ring.append(i, i);
+        }
+
+        List<Long> sequences = new ArrayList<>();
+        ring.read(6, 10, (sequence, timestamp, payload) -> {
+            sequences.add(sequence);
+            assertEquals(sequence, payload);
+            if (sequence == 6) {
+                // The producer laps the reader: 6 and 7 are reused for 10 and 11.
+                ring.append(10, 10);
+                ring.append(11, 11);
+            }
+        });
+
+        assertEquals(List.of(6L, 8L, 9L), sequences);
+    }
+
+    @Test
+    void readsNothingPastHead() throws IOException {
+        EventRing ring = new EventRing(4);
+        ring.append(0, 0);
+
+        assertEquals(List.of(), readSequences(ring, 1, 10));
+    }
+
+    private static List<Long> readSequences(EventRing ring, long from, int maxCount) throws IOException {
+        List<Long> sequences = new ArrayList<>();
+        ring.read(from, maxCount, (sequence, timestamp, payload) -> sequences.add(sequence));
+        return sequences;
+    }
+}
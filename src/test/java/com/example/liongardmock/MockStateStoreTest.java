@@ -0,0 +1,84 @@
+package com.example.liongardmock;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MockStateStoreTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoveryContinuesPastTornTail() throws IOException {
+        try (StateJournal journal = new StateJournal(directory, 1)) {
+            for (long sequence = 1; sequence <= 3; sequence++) {
+                StateRecord record = new StateRecord(sequence, StateRecord.PUT_OVERRIDE, "Op" + sequence,
+                        override(200, "Op" + sequence));
+                StateJournal.await(journal.append(record), 5_000);
+            }
+        }
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (MockStateStore state = MockStateStore.open(directory, Duration.ZERO)) {
+            assertNull(state.override("Op3"));
+            state.putOverride("Op3", override(503, "retried"));
+            assertEquals(503, state.override("Op3").statusCode());
+        }
+        try (MockStateStore state = MockStateStore.open(directory, Duration.ZERO)) {
+            assertEquals(200, state.override("Op1").statusCode());
+            assertEquals(503, state.override("Op3").statusCode());
+        }
+    }
+
+    @Test
+    void replaysJournalOnTopOfSnapshot() throws IOException {
+        try (MockStateStore state = MockStateStore.open(directory, Duration.ZERO)) {
+            state.putOverride("Op1", override(500, "before"));
+            state.putOverride("Op2", override(404, "before"));
+            List<Path> beforeSnapshot = segments();
+
+            state.snapshot();
+
+            List<Path> afterSnapshot = segments();
+            assertTrue(Files.exists(directory.resolve("snapshot.bin")));
+            assertEquals(1, afterSnapshot.size(), "segments: " + afterSnapshot);
+            assertTrue(beforeSnapshot.stream().noneMatch(afterSnapshot::contains),
+                    "segments covered by the snapshot must be deleted: " + afterSnapshot);
+
+            state.putOverride("Op1", override(503, "after"));
+            state.removeOverride("Op2");
+        }
+
+        try (MockStateStore state = MockStateStore.open(directory, Duration.ZERO)) {
+            assertEquals(503, state.override("Op1").statusCode());
+            assertEquals("after", new String(state.override("Op1").body(), StandardCharsets.UTF_8));
+            assertNull(state.override("Op2"));
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("journal-")).sorted().toList();
+        }
+    }
+
+    private static ResponseOverride override(int statusCode, String body) {
+        return new ResponseOverride(statusCode, "application/json", body.getBytes(StandardCharsets.UTF_8));
+    }
+}
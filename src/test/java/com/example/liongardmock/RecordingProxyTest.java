@@ -0,0 +1,165 @@
+package com.example.liongardmock;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RecordingProxyTest {
+    @TempDir
+    Path recordDir;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final Map<String, AtomicInteger> upstreamCalls = new ConcurrentHashMap<>();
+    private HttpServer upstream;
+
+    @BeforeEach
+    void startUpstream() throws IOException {
+        upstream = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        upstream.setExecutor(Executors.newCachedThreadPool());
+        upstream.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            upstreamCalls.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+            String requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            if (path.equals("/slow")) {
+                sleep(300);
+            }
+            int status = path.equals("/missing") ? 404 : 200;
+            byte[] body = ("{\"echo\":\"" + exchange.getRequestMethod() + " " + path + " " + requestBody + "\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        upstream.start();
+    }
+
+    @AfterEach
+    void stopUpstream() {
+        upstream.stop(0);
+    }
+
+    @Test
+    void cacheKeySortsQueryPairs() {
+        assertEquals("GET /assets?a=1&b=2&flag=",
+                RecordingProxy.cacheKey("GET", URI.create("/assets?b=2&flag&&a=1")));
+        assertEquals(RecordingProxy.cacheKey("GET", URI.create("/assets?a=1&b=2")),
+                RecordingProxy.cacheKey("GET", URI.create("/assets?b=2&a=1")));
+        assertEquals("HEAD /assets", RecordingProxy.cacheKey("HEAD", URI.create("/assets?")));
+    }
+
+    @Test
+    void concurrentMissesShareOneUpstreamCall() throws Exception {
+        try (MockApiServer server = startServer()) {
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                responses.add(client.sendAsync(get(server, "/slow?b=2&a=1"), HttpResponse.BodyHandlers.ofString()));
+            }
+
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                assertEquals(200, response.get(10, TimeUnit.SECONDS).statusCode());
+                assertEquals("{\"echo\":\"GET /slow \"}", response.get().body());
+            }
+            assertEquals(1, upstreamCalls.get("/slow").get());
+        }
+    }
+
+    @Test
+    void recordingsAreReplayedAfterRestart() throws Exception {
+        try (MockApiServer server = startServer()) {
+            HttpResponse<String> first = client.send(get(server, "/assets?a=1&b=2"), HttpResponse.BodyHandlers.ofString());
+            assertEquals("miss", first.headers().firstValue("X-Mock-Proxy").orElse(null));
+        }
+        upstream.stop(0);
+
+        try (MockApiServer server = startServer()) {
+            HttpResponse<String> replayed = client.send(get(server, "/assets?b=2&a=1"), HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, replayed.statusCode());
+            assertEquals("hit", replayed.headers().firstValue("X-Mock-Proxy").orElse(null));
+            assertEquals("{\"echo\":\"GET /assets \"}", replayed.body());
+        }
+        assertEquals(1, upstreamCalls.get("/assets").get());
+    }
+
+    @Test
+    void errorResponsesArePassedThroughButNotRecorded() throws Exception {
+        try (MockApiServer server = startServer()) {
+            for (int i = 0; i < 2; i++) {
+                HttpResponse<String> response = client.send(get(server, "/missing"), HttpResponse.BodyHandlers.ofString());
+                assertEquals(404, response.statusCode());
+                assertEquals("miss", response.headers().firstValue("X-Mock-Proxy").orElse(null));
+            }
+        }
+        assertEquals(2, upstreamCalls.get("/missing").get());
+    }
+
+    @Test
+    void requestsWithBodiesAreAlwaysForwarded() throws Exception {
+        try (MockApiServer server = startServer()) {
+            HttpResponse<String> one = client.send(post(server, "one"), HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> two = client.send(post(server, "two"), HttpResponse.BodyHandlers.ofString());
+
+            assertEquals("{\"echo\":\"POST /items one\"}", one.body());
+            assertEquals("{\"echo\":\"POST /items two\"}", two.body());
+            assertEquals("bypass", two.headers().firstValue("X-Mock-Proxy").orElse(null));
+        }
+        assertEquals(2, upstreamCalls.get("/items").get());
+    }
+
+    private MockApiServer startServer() throws IOException {
+        URI upstreamUri = URI.create("http://127.0.0.1:" + upstream.getAddress().getPort());
+        MockApiServer server = MockApiServer.builder()
+                .routes(List.of(new RouteConfig("Ping", "GET", "/ping", List.of(),
+                        new MockResponseConfig(204, null, null, false, null))))
+                .proxy(new ProxyConfig(upstreamUri, Set.of(), recordDir, Duration.ofSeconds(5)))
+                .quiet(true)
+                .build();
+        server.start();
+        return server;
+    }
+
+    private static HttpRequest get(MockApiServer server, String path) {
+        return HttpRequest.newBuilder(server.baseUri().resolve(path)).build();
+    }
+
+    private static HttpRequest post(MockApiServer server, String body) {
+        return HttpRequest.newBuilder(server.baseUri().resolve("/items"))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
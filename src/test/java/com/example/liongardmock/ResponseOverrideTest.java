@@ -0,0 +1,20 @@
+package com.example.liongardmock;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ResponseOverrideTest {
+    @Test
+    void rejectsStatusOutsideHttpRange() {
+        assertThrows(IllegalArgumentException.class, () -> new ResponseOverride(70_000, "application/json", null));
+        assertThrows(IllegalArgumentException.class, () -> new ResponseOverride(99, "application/json", null));
+    }
+
+    @Test
+    void acceptsHttpRangeBounds() {
+        assertEquals(100, new ResponseOverride(100, null, null).statusCode());
+        assertEquals(0, new ResponseOverride(599, null, null).body().length);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.liongardmock;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponsePlanCompilerTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void echoesPathParametersIntoMatchingProperties() throws IOException {
+        JsonNode schema = MAPPER.readTree("""
+                {"type": "object", "properties": {
+                  "ID": {"type": "integer", "minimum": 1, "maximum": 99},
+                  "EnvironmentID": {"type": "integer", "minimum": 1, "maximum": 99},
+                  "Name": {"type": "string", "example": "Contoso Nation"}}}""");
+        ResponsePlan plan = new ResponsePlanCompiler(MAPPER.createObjectNode()).compile(schema, "/environments/{EnvironmentID}");
+
+        JsonNode body = write(plan, Map.of("EnvironmentID", "123"));
+
+        assertEquals(123, body.get("ID").asInt());
+        assertEquals(123, body.get("EnvironmentID").asInt());
+        assertNotEquals("123", body.get("Name").asText());
+    }
+
+    @Test
+    void keepsRootIdRandomWhenPathContinuesPastParameter() throws IOException {
+        JsonNode schema = MAPPER.readTree("""
+                {"type": "object", "properties": {"ID": {"type": "integer", "minimum": 1, "maximum": 99}}}""");
+        ResponsePlan plan = new ResponsePlanCompiler(MAPPER.createObjectNode())
+                .compile(schema, "/environments/{EnvironmentID}/relatedEntities");
+
+        int id = write(plan, Map.of("EnvironmentID", "123")).get("ID").asInt();
+
+        assertNotEquals(123, id);
+    }
+
+    @Test
+    void keepsRoundedNumbersWithinBounds() throws IOException {
+        JsonNode schema = MAPPER.readTree("""
+                {"type": "number", "minimum": 0.001, "maximum": 0.004}""");
+        ResponsePlan plan = new ResponsePlanCompiler(MAPPER.createObjectNode()).compile(schema);
+
+        for (long requestNumber = 0; requestNumber < 100; requestNumber++) {
+            double value = write(plan, 7, requestNumber, Map.of()).asDouble();
+            assertTrue(value >= 0.001 && value <= 0.004, "value out of bounds: " + value);
+        }
+    }
+
+    private static JsonNode write(ResponsePlan plan, Map<String, String> pathParams) throws IOException {
+        return write(plan, 7, 0, pathParams);
+    }
+
+    private static JsonNode write(ResponsePlan plan, long seed, long requestNumber, Map<String, String> pathParams)
+            throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(out)) {
+            plan.write(generator, seed, requestNumber, pathParams);
+        }
+        return MAPPER.readTree(out.toString());
+    }
+}
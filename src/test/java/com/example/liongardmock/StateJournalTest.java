@@ -0,0 +1,91 @@
+package com.example.liongardmock;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StateJournalTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void replayStopsAtTornTail() throws IOException {
+        try (StateJournal journal = new StateJournal(directory, 1)) {
+            for (long sequence = 1; sequence <= 3; sequence++) {
+                StateJournal.await(journal.append(put(sequence, "Op" + sequence)), 5_000);
+            }
+        }
+        Path segment = onlySegment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        List<StateRecord> replayed = new ArrayList<>();
+        long lastSequence = StateJournal.replay(directory, 0, replayed::add);
+
+        assertEquals(2, lastSequence);
+        assertEquals(List.of("Op1", "Op2"), replayed.stream().map(StateRecord::operationId).toList());
+    }
+
+    @Test
+    void newSegmentAfterTornTailIsReplayed() throws IOException {
+        try (StateJournal journal = new StateJournal(directory, 1)) {
+            StateJournal.await(journal.append(put(1, "Op1")), 5_000);
+            StateJournal.await(journal.append(put(2, "Op2")), 5_000);
+        }
+        Path segment = onlySegment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        try (StateJournal journal = new StateJournal(directory, 2)) {
+            StateJournal.await(journal.append(put(2, "Op2b")), 5_000);
+        }
+
+        List<StateRecord> replayed = new ArrayList<>();
+        StateJournal.replay(directory, 0, replayed::add);
+
+        assertEquals(List.of("Op1", "Op2b"), replayed.stream().map(StateRecord::operationId).toList());
+    }
+
+    @Test
+    void failedRollKeepsJournalWritable() throws IOException {
+        // A directory where the next segment should go makes opening it fail.
+        Files.createDirectory(directory.resolve("journal-00000000000000000002.log"));
+        try (StateJournal journal = new StateJournal(directory, 1)) {
+            StateJournal.await(journal.append(put(1, "Op1")), 5_000);
+            assertThrows(IOException.class, () -> StateJournal.await(journal.roll(2), 5_000));
+            StateJournal.await(journal.append(put(2, "Op2")), 5_000);
+        }
+
+        List<StateRecord> replayed = new ArrayList<>();
+        StateJournal.replay(directory, 0, replayed::add);
+
+        assertEquals(List.of("Op1", "Op2"), replayed.stream().map(StateRecord::operationId).toList());
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("journal-")).findFirst().orElseThrow();
+        }
+    }
+
+    private static StateRecord put(long sequence, String operationId) {
+        return new StateRecord(sequence, StateRecord.PUT_OVERRIDE, operationId, override(200, operationId));
+    }
+
+    private static ResponseOverride override(int statusCode, String body) {
+        return new ResponseOverride(statusCode, "application/json", body.getBytes(StandardCharsets.UTF_8));
+    }
+}